@@ -0,0 +1,100 @@
+package com.target.barrenland;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * The farm engines that FarmBenchmark can compare. Farm appears once
+ * per labeling mode, since the modes only differ in getFertileLand().
+ *
+ * @author Alexis Johnson
+ * @version 1.0
+ */
+public enum Engine {
+    FARM {
+        @Override
+        AbstractFarm create(int width, int length) throws InvalidBoundaryException {
+            return new Farm(width, length);
+        }
+    },
+    FARM_BITSET {
+        @Override
+        AbstractFarm create(int width, int length) throws InvalidBoundaryException {
+            return new Farm(width, length, LandStorageType.BITSET);
+        }
+    },
+    FARM_TWO_PASS {
+        @Override
+        AbstractFarm create(int width, int length) throws InvalidBoundaryException {
+            Farm farm = new Farm(width, length);
+            farm.setLabelingMode(LabelingMode.TWO_PASS);
+            return farm;
+        }
+    },
+    FARM_PARALLEL {
+        @Override
+        AbstractFarm create(int width, int length) throws InvalidBoundaryException {
+            Farm farm = new Farm(width, length);
+            farm.setLabelingMode(LabelingMode.PARALLEL);
+            return farm;
+        }
+    },
+    FARM_WORD_RUNS {
+        @Override
+        AbstractFarm create(int width, int length) throws InvalidBoundaryException {
+            Farm farm = new Farm(width, length, LandStorageType.BITSET);
+            farm.setLabelingMode(LabelingMode.WORD_RUNS);
+            return farm;
+        }
+    },
+    COMPRESSED {
+        @Override
+        AbstractFarm create(int width, int length) throws InvalidBoundaryException {
+            return new CompressedFarm(width, length);
+        }
+    },
+    RUN_LENGTH {
+        @Override
+        AbstractFarm create(int width, int length) throws InvalidBoundaryException {
+            return new RunLengthFarm(width, length);
+        }
+    },
+    MAPPED {
+        @Override
+        AbstractFarm create(int width, int length) throws InvalidBoundaryException, IOException {
+            return new MappedFarm(width, length);
+        }
+    },
+    QUAD_TREE {
+        @Override
+        AbstractFarm create(int width, int length) throws InvalidBoundaryException {
+            return new QuadTreeFarm(width, length);
+        }
+    },
+    STREAMING {
+        @Override
+        AbstractFarm create(int width, int length) throws InvalidBoundaryException {
+            return new StreamingFarm(width, length);
+        }
+    };
+
+    /**
+     * Creates an empty farm of the given size.
+     *
+     * @param width: size of the farm along x
+     * @param length: size of the farm along y
+     * @return the new farm
+     */
+    abstract AbstractFarm create(int width, int length) throws InvalidBoundaryException, IOException;
+
+    /**
+     * Releases any resource held by a farm created by this engine.
+     *
+     * @param farm: a farm created by this engine
+     */
+    void close(AbstractFarm farm) throws IOException {
+        if (farm instanceof Closeable) {
+            ((Closeable) farm).close();
+        }
+    }
+}
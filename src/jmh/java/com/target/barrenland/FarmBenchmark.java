@@ -0,0 +1,138 @@
+package com.target.barrenland;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks for the three operations every farm engine supports:
+ * makeBarren, getFertileLand and resetLand.
+ *
+ * Each benchmark runs for every combination of engine, farm size and
+ * scenario (see Scenario for the scenario syntax). Every constant of
+ * Engine is benchmarked, so a new engine or labeling mode is picked up
+ * as soon as it is added there. Run a subset with -p,
+ * and add -prof gc to report the allocation rate, for example:
+ *
+ * java -jar target/benchmarks.jar FarmBenchmark -p engine=FARM,COMPRESSED -p size=5000x5000 -prof gc
+ *
+ * 50000x50000 is 2.5 billion coordinates, more than the land matrix of
+ * the grid engines (FARM_*) can hold: their setup fails with an
+ * InvalidBoundaryException, which JMH reports before moving on to the
+ * next combination. The tiny scenario at that size has 625 million
+ * regions and needs a heap of several GB for any engine; leave it out
+ * with -p scenario=... when that is too much, for example:
+ *
+ * java -jar target/benchmarks.jar FarmBenchmark -p size=50000x50000 -p scenario=provided,serpentine
+ *
+ * Each invocation replays a whole scenario, so setup runs once per
+ * invocation and the benchmarks report single shot times.
+ *
+ * @author Alexis Johnson
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class FarmBenchmark {
+
+    /**
+     * The farm under test and the scenario's rectangles. Each benchmark
+     * takes one subclass, which prepares the farm before every invocation.
+     */
+    @State(Scope.Thread)
+    public abstract static class FarmState {
+        // no values, so JMH runs every constant of Engine
+        @Param
+        public Engine engine;
+
+        @Param({"400x600", "5000x5000", "50000x50000"})
+        public String size;
+
+        @Param({"provided", "random:100:0.01", "random:10000:0.1", "serpentine", "tiny"})
+        public String scenario;
+
+        AbstractFarm farm;
+        List<BarrenRectangle> rectangles;
+
+        @Setup(Level.Trial)
+        public void createFarm() throws InvalidBoundaryException, IOException {
+            String[] dimensions = size.split("x");
+            int width = Integer.parseInt(dimensions[0]);
+            int length = Integer.parseInt(dimensions[1]);
+            farm = engine.create(width, length);
+            rectangles = Scenario.rectangles(scenario, width, length);
+        }
+
+        @TearDown(Level.Trial)
+        public void closeFarm() throws IOException {
+            engine.close(farm);
+        }
+    }
+
+    /**
+     * A farm with nothing barren, for the makeBarren benchmarks.
+     */
+    @State(Scope.Thread)
+    public static class EmptyFarm extends FarmState {
+        @Setup(Level.Invocation)
+        public void reset() {
+            farm.resetLand();
+        }
+    }
+
+    /**
+     * A farm with the scenario's rectangles barren, but not yet analyzed.
+     */
+    @State(Scope.Thread)
+    public static class BarrenFarm extends FarmState {
+        @Setup(Level.Invocation)
+        public void paint() throws InvalidBoundaryException {
+            farm.resetLand();
+            farm.makeBarren(rectangles);
+        }
+    }
+
+    // one rectangle at a time, as the interactive mode does
+    @Benchmark
+    public AbstractFarm makeBarren(EmptyFarm state) throws InvalidBoundaryException {
+        for (BarrenRectangle rectangle : state.rectangles) {
+            state.farm.makeBarren(rectangle.getBottomLeft(), rectangle.getTopRight());
+        }
+        return state.farm;
+    }
+
+    // the whole scenario at once, as batch mode does
+    @Benchmark
+    public AbstractFarm makeBarrenBatch(EmptyFarm state) throws InvalidBoundaryException {
+        state.farm.makeBarren(state.rectangles);
+        return state.farm;
+    }
+
+    @Benchmark
+    public long[] getFertileLand(BarrenFarm state) {
+        return state.farm.getFertileAreas();
+    }
+
+    @Benchmark
+    public AbstractFarm resetLand(BarrenFarm state) {
+        state.farm.resetLand();
+        return state.farm;
+    }
+}
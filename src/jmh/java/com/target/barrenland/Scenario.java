@@ -0,0 +1,110 @@
+package com.target.barrenland;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates the barren rectangles of a benchmark scenario. A scenario is
+ * written as a name followed by optional arguments separated by colons:
+ *
+ * provided                the second example from the README, scaled to the farm
+ * random:COUNT:OVERLAP    COUNT random rectangles whose sides are at most OVERLAP
+ *                         times the farm's sides, so a larger OVERLAP means denser,
+ *                         more overlapping rectangles
+ * serpentine              barren walls on every other row, open at alternating
+ *                         ends, leaving one winding region as deep as the farm is large
+ * tiny                    barren lines on every odd row and column, leaving one
+ *                         1x1 region per remaining cell
+ *
+ * Rectangles are generated from a fixed seed so every run sees the same farm.
+ *
+ * @author Alexis Johnson
+ * @version 1.0
+ */
+final class Scenario {
+    private static final long SEED = 20200601L;
+
+    private Scenario() {
+    }
+
+    /**
+     * Returns the rectangles of a scenario on a farm of the given size.
+     *
+     * @param scenario: scenario name and arguments
+     * @param width: size of the farm along x
+     * @param length: size of the farm along y
+     * @return the barren rectangles
+     */
+    static List<BarrenRectangle> rectangles(String scenario, int width, int length) {
+        String[] parts = scenario.split(":");
+        switch (parts[0]) {
+            case "provided":
+                return provided(width, length);
+            case "random":
+                if (parts.length != 3) {
+                    throw new IllegalArgumentException("Use random:COUNT:OVERLAP, not " + scenario);
+                }
+                return random(width, length, Integer.parseInt(parts[1]), Double.parseDouble(parts[2]));
+            case "serpentine":
+                return serpentine(width, length);
+            case "tiny":
+                return tiny(width, length);
+            default:
+                throw new IllegalArgumentException("Unknown scenario: " + scenario);
+        }
+    }
+
+    /**
+     * The README's 400x600 example with 4 rectangles, stretched to the farm.
+     */
+    private static List<BarrenRectangle> provided(int width, int length) {
+        int[][] corners = {{48, 192, 351, 207}, {48, 392, 351, 407}, {120, 52, 135, 547}, {260, 52, 275, 547}};
+        List<BarrenRectangle> rectangles = new ArrayList<>();
+        for (int[] c : corners) {
+            rectangles.add(new BarrenRectangle(
+                    (int) ((long) c[0] * width / 400), (int) ((long) c[1] * length / 600),
+                    (int) ((long) c[2] * width / 400), (int) ((long) c[3] * length / 600)));
+        }
+        return rectangles;
+    }
+
+    private static List<BarrenRectangle> random(int width, int length, int count, double overlap) {
+        Random random = new Random(SEED);
+        int maxWidth = Math.max(1, (int) (width * overlap));
+        int maxLength = Math.max(1, (int) (length * overlap));
+        List<BarrenRectangle> rectangles = new ArrayList<>(count);
+        for (int r=0; r<count; r++) {
+            int x = random.nextInt(width);
+            int y = random.nextInt(length);
+            int x2 = Math.min(width - 1, x + random.nextInt(maxWidth));
+            int y2 = Math.min(length - 1, y + random.nextInt(maxLength));
+            rectangles.add(new BarrenRectangle(x, y, x2, y2));
+        }
+        return rectangles;
+    }
+
+    private static List<BarrenRectangle> serpentine(int width, int length) {
+        List<BarrenRectangle> rectangles = new ArrayList<>();
+        for (int x=1; x<width; x+=2) {
+            // walls alternate between leaving the last and the first cell of the row open
+            if (x % 4 == 1) {
+                rectangles.add(new BarrenRectangle(x, 0, x, length - 2));
+            } else {
+                rectangles.add(new BarrenRectangle(x, 1, x, length - 1));
+            }
+        }
+        return rectangles;
+    }
+
+    private static List<BarrenRectangle> tiny(int width, int length) {
+        List<BarrenRectangle> rectangles = new ArrayList<>();
+        for (int x=1; x<width; x+=2) {
+            rectangles.add(new BarrenRectangle(x, 0, x, length - 1));
+        }
+        for (int y=1; y<length; y+=2) {
+            rectangles.add(new BarrenRectangle(0, y, width - 1, y));
+        }
+        return rectangles;
+    }
+}
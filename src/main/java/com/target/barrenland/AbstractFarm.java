@@ -0,0 +1,199 @@
+package com.target.barrenland;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Common base for every farm engine. It holds the farm's dimensions
+ * and the boundary checks, so an engine only has to decide how barren
+ * land is stored and how the fertile areas are found.
+ *
+ * Coordinates follow the same convention everywhere: x ranges from
+ * 0 to width-1 and y ranges from 0 to length-1.
+ *
+ * @author Alexis Johnson
+ * @version 1.0
+ */
+public abstract class AbstractFarm {
+    protected final int width;
+    protected final int length;
+
+    /**
+     * Validate and store the farm's dimensions.
+     * Throws an InvalidBoundaryException if the length
+     * or width are not positive.
+     *
+     * @param width: size of the farm along x
+     * @param length: size of the farm along y
+     */
+    protected AbstractFarm(int width, int length) throws InvalidBoundaryException {
+        if (width <= 0 || length <= 0) {
+            throw new InvalidBoundaryException("Length and width must be greater than 0.");
+        }
+        this.width = width;
+        this.length = length;
+    }
+
+    /**
+     * Makes the rectangle spanned by the two given corners barren.
+     * The corners may be given in any order. Throws an
+     * InvalidBoundaryException if either corner is off the farm.
+     *
+     * @param a: One corner of the barren land
+     * @param b: The other corner of the barren land
+     */
+    public abstract void makeBarren(Point a, Point b) throws InvalidBoundaryException;
+
+    /**
+     * Makes every rectangle of a batch barren. The whole batch is
+     * checked first: if any rectangle is off the farm, an
+     * InvalidBoundaryException is thrown and nothing is changed.
+     *
+     * Engines that can paint a batch faster than one rectangle at
+     * a time override this.
+     *
+     * @param rectangles: the barren rectangles
+     */
+    public void makeBarren(Collection<BarrenRectangle> rectangles) throws InvalidBoundaryException {
+        checkBounds(rectangles);
+        for (BarrenRectangle rectangle : rectangles) {
+            makeBarren(rectangle.getBottomLeft(), rectangle.getTopRight());
+        }
+    }
+
+    /**
+     * Throws an InvalidBoundaryException if any of
+     * the rectangles is not entirely on the farm.
+     *
+     * @param rectangles: the barren rectangles
+     */
+    protected void checkBounds(Collection<BarrenRectangle> rectangles) throws InvalidBoundaryException {
+        for (BarrenRectangle rectangle : rectangles) {
+            if (rectangle.getMinX() < 0 || rectangle.getMinY() < 0
+                    || rectangle.getMaxX() >= width || rectangle.getMaxY() >= length) {
+                throw new InvalidBoundaryException("Barren land coordinates must be in land matrix.");
+            }
+        }
+    }
+
+    /**
+     * Returns the area of every connected fertile region,
+     * sorted from least to greatest. Areas are longs, so they are
+     * exact however large the farm is.
+     *
+     * @return sorted array of fertile areas
+     */
+    public abstract long[] getFertileAreas();
+
+    /**
+     * Returns the area of every connected fertile region,
+     * sorted from least to greatest. By default the areas are boxed
+     * from getFertileAreas(); throws an ArithmeticException if an area
+     * does not fit in an int, use getFertileAreas() for farms that large.
+     *
+     * @return sorted list of fertile areas
+     */
+    public List<Integer> getFertileLand() {
+        long[] areas = getFertileAreas();
+        List<Integer> result = new ArrayList<>(areas.length);
+        for (long area : areas) {
+            result.add(Math.toIntExact(area));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the same areas as getFertileAreas(), see FertileAreas.
+     * The array is wrapped without copying it.
+     *
+     * @return sorted fertile areas
+     */
+    public FertileAreas getSortedAreas() {
+        return FertileAreas.ofSorted(getFertileAreas());
+    }
+
+    /**
+     * Returns the k largest fertile areas, sorted from least to greatest.
+     * If there are fewer than k regions, all of the areas are returned.
+     *
+     * @param k: number of areas wanted
+     * @return sorted array of at most k areas
+     */
+    public long[] largestAreas(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must not be negative.");
+        }
+        if (k == 0) {
+            return new long[0];
+        }
+        return findLargest(k, 1);
+    }
+
+    /**
+     * Returns every fertile area of at least min coordinates,
+     * sorted from least to greatest.
+     *
+     * @param min: smallest area wanted
+     * @return sorted array of areas
+     */
+    public long[] areasAtLeast(long min) {
+        return findLargest(Integer.MAX_VALUE, Math.max(min, 1));
+    }
+
+    /**
+     * Returns the k largest fertile areas of at least min coordinates,
+     * sorted from least to greatest - the work behind largestAreas() and
+     * areasAtLeast().
+     *
+     * Engines that can stop before every region is found override this;
+     * by default the areas are taken from getFertileAreas().
+     *
+     * @param k: most areas returned, at least 1
+     * @param min: smallest area returned, at least 1
+     * @return sorted array of areas
+     */
+    protected long[] findLargest(int k, long min) {
+        long[] areas = getFertileAreas();
+        int from = Math.max(0, areas.length - k);
+        while (from < areas.length && areas[from] < min) {
+            from++;
+        }
+        return Arrays.copyOfRange(areas, from, areas.length);
+    }
+
+    /**
+     * Makes the whole farm fertile again.
+     */
+    public abstract void resetLand();
+
+    /**
+     * Returns a boolean indicating whether the given
+     * point lies outside of the farm.
+     *
+     * @param p: A point with coordinates x and y
+     */
+    protected boolean outOfBounds(Point p) {
+        return p.x < 0 || p.y < 0 || p.x >= width || p.y >= length;
+    }
+
+    /**
+     * get the width of the farm
+     *
+     * @return width
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * get the length of the farm
+     *
+     * @return length
+     */
+    public int getLength() {
+        return length;
+    }
+}
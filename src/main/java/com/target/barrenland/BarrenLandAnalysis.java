@@ -1,6 +1,13 @@
 package com.target.barrenland;
 
 import java.awt.Point;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Scanner;
 
@@ -31,29 +38,52 @@ public class BarrenLandAnalysis {
 
     private static final String enterBarrenLand = "To add barren land, input 4 integers. Otherwise, press ENTER to see results.";
 
+    private static final String batchUsage = "Usage: BarrenLandAnalysis [--stats] --batch WIDTH LENGTH [FILE]\n" +
+            "Reads rectangles (4 integers each) from FILE, or from STDIN if FILE is missing or \"-\",\n" +
+            "and prints the fertile areas in ascending order. --stats prints timings and counters to STDERR.";
+
     /**
      * Main function. Continually asks for barren land input. Validates each input and
      * lets the user know if the input was added to the land matrix successfully.
      * When the user presses ENTER with no input, it runs a fertile land analysis,
      * printing a list of fertile areas in ascending order to the terminal.
      *
+     * With --batch as the first argument the program does not prompt;
+     * see runBatch(). With --stats anywhere in the arguments, the farm's
+     * metrics are printed after the areas, see FarmMetrics.
+     *
      * @param args
      */
     public static void main(String[] args) {
+        List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        boolean stats = arguments.remove("--stats");
+        args = arguments.toArray(new String[0]);
+        if (args.length > 0 && args[0].equals("--batch")) {
+            System.exit(runBatch(args, stats));
+        }
         System.out.println("WELCOME TO THE BARREN LAND ANALYSIS");
         System.out.println(instructions);
         try {
             Farm farm = new Farm(WIDTH, LENGTH);
+            if (stats) {
+                farm.enableMetrics();
+            }
             Scanner in = new Scanner(System.in);
             boolean inputReceived = false;
             while (!inputReceived) {
                 inputReceived = setBarrenLand(in, farm);
             }
             System.out.println("Calculating . . . \n");
-            printAreas(farm.getFertileLand());
+            farm.getSortedAreas().writeTo(System.out);
+            System.out.flush();
+            if (stats) {
+                System.out.println("\n" + farm.getMetrics());
+            }
 
         } catch (InvalidBoundaryException e) {
             System.out.println("Hardcoded WIDTH and LENGTH are invalid. Ending program.");
+        } catch (IOException e) {
+            System.out.println("Could not print the results: " + e.getMessage());
         }
     }
 
@@ -113,14 +143,59 @@ public class BarrenLandAnalysis {
     }
 
     /**
-     * Print the result of the program to STDOUT
+     * Non-interactive mode for large inputs:
+     * BarrenLandAnalysis --batch WIDTH LENGTH [FILE]
+     *
+     * The farm's dimensions come from the arguments. Rectangles are
+     * streamed from FILE (or STDIN) through a RectangleReader, which parses
+     * the bytes directly instead of going through Scanner, and are painted
+     * as one batch. The areas are formatted straight into bytes by
+     * FertileAreas.writeTo(), in large chunks.
+     * Errors, and the farm's metrics if requested, go to STDERR.
      *
-     * @param areas A list of fertile land areas
+     * @param args: the command line arguments, starting with --batch
+     * @param stats: whether to print the farm's metrics
+     * @return the exit status, 0 on success
      */
-    private static void printAreas(List<Integer> areas) {
-        for (int a : areas) {
-            System.out.print(a + " ");
+    static int runBatch(String[] args, boolean stats) {
+        if (args.length < 3 || args.length > 4) {
+            System.err.println(batchUsage);
+            return 2;
+        }
+        int width;
+        int length;
+        try {
+            width = Integer.parseInt(args[1]);
+            length = Integer.parseInt(args[2]);
+        } catch (NumberFormatException e) {
+            System.err.println("WIDTH and LENGTH must be integers.\n" + batchUsage);
+            return 2;
+        }
+        boolean fromStdin = args.length == 3 || args[3].equals("-");
+        Farm farm;
+        try (ReadableByteChannel channel = fromStdin ? Channels.newChannel(System.in) : FileChannel.open(Paths.get(args[3]))) {
+            farm = new Farm(width, length);
+            if (stats) {
+                farm.enableMetrics();
+            }
+            farm.makeBarren(new RectangleReader(channel).readAll());
+        } catch (InvalidBoundaryException e) {
+            System.err.println(e.getMessage());
+            return 1;
+        } catch (IOException e) {
+            System.err.println("Could not read the rectangles: " + e.getMessage());
+            return 1;
+        }
+        try {
+            farm.getSortedAreas().writeTo(System.out);
+            System.out.flush();
+        } catch (IOException e) {
+            System.err.println("Could not print the results: " + e.getMessage());
+            return 1;
+        }
+        if (stats) {
+            System.err.println(farm.getMetrics());
         }
-        System.out.println();
+        return 0;
     }
 }
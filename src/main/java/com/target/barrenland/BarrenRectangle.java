@@ -0,0 +1,127 @@
+package com.target.barrenland;
+
+import java.awt.Point;
+
+/**
+ * An immutable rectangle of barren land. The corners are inclusive
+ * and normalized, so any two opposite corners describe the same
+ * rectangle.
+ *
+ * @author Alexis Johnson
+ * @version 1.0
+ */
+public final class BarrenRectangle {
+    private final int minX;
+    private final int minY;
+    private final int maxX;
+    private final int maxY;
+
+    /**
+     * Construct the rectangle spanned by two corners, given in any order.
+     *
+     * @param a: One corner of the barren land
+     * @param b: The other corner of the barren land
+     */
+    public BarrenRectangle(Point a, Point b) {
+        this(a.x, a.y, b.x, b.y);
+    }
+
+    /**
+     * Construct the rectangle spanned by two corners, given in any order.
+     *
+     * @param x1: x coordinate of one corner
+     * @param y1: y coordinate of one corner
+     * @param x2: x coordinate of the other corner
+     * @param y2: y coordinate of the other corner
+     */
+    public BarrenRectangle(int x1, int y1, int x2, int y2) {
+        minX = Math.min(x1, x2);
+        minY = Math.min(y1, y2);
+        maxX = Math.max(x1, x2);
+        maxY = Math.max(y1, y2);
+    }
+
+    public int getMinX() {
+        return minX;
+    }
+
+    public int getMinY() {
+        return minY;
+    }
+
+    public int getMaxX() {
+        return maxX;
+    }
+
+    public int getMaxY() {
+        return maxY;
+    }
+
+    /**
+     * @return the bottom left corner
+     */
+    public Point getBottomLeft() {
+        return new Point(minX, minY);
+    }
+
+    /**
+     * @return the top right corner
+     */
+    public Point getTopRight() {
+        return new Point(maxX, maxY);
+    }
+
+    /**
+     * @return the number of coordinates covered
+     */
+    public long area() {
+        return (long) (maxX - minX + 1) * (maxY - minY + 1);
+    }
+
+    /**
+     * @return whether the coordinate (x,y) lies in this rectangle
+     */
+    public boolean contains(int x, int y) {
+        return minX <= x && x <= maxX && minY <= y && y <= maxY;
+    }
+
+    /**
+     * @return whether every coordinate of other lies in this rectangle
+     */
+    public boolean contains(BarrenRectangle other) {
+        return minX <= other.minX && other.maxX <= maxX && minY <= other.minY && other.maxY <= maxY;
+    }
+
+    /**
+     * @return whether this rectangle and other share a coordinate
+     */
+    public boolean intersects(BarrenRectangle other) {
+        return minX <= other.maxX && other.minX <= maxX && minY <= other.maxY && other.minY <= maxY;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof BarrenRectangle)) {
+            return false;
+        }
+        BarrenRectangle other = (BarrenRectangle) o;
+        return minX == other.minX && minY == other.minY && maxX == other.maxX && maxY == other.maxY;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = minX;
+        hash = 31*hash + minY;
+        hash = 31*hash + maxX;
+        hash = 31*hash + maxY;
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return minX + " " + minY + " " + maxX + " " + maxY;
+    }
+}
@@ -0,0 +1,140 @@
+package com.target.barrenland;
+
+import java.util.Arrays;
+
+/**
+ * LandStorage that keeps the barren mask as one bit per cell in a long[].
+ * Labels are kept in a separate int[], allocated the first time a cell
+ * is labeled, so a farm that is only being painted costs width*length/8
+ * bytes.
+ *
+ * @author Alexis Johnson
+ * @version 1.0
+ */
+final class BitsetLandStorage implements LandStorage {
+    private final long[] barren;
+    private final int cells;
+    private int[] labels; // null until the first label is written
+
+    BitsetLandStorage(int cells) {
+        this.cells = cells;
+        barren = new long[(cells + 63) >>> 6];
+    }
+
+    private BitsetLandStorage(BitsetLandStorage parent) {
+        cells = parent.cells;
+        barren = parent.barren.clone();
+        labels = parent.labels == null ? null : parent.labels.clone();
+    }
+
+    @Override
+    public LandStorage fork() {
+        return new BitsetLandStorage(this);
+    }
+
+    @Override
+    public int get(int index) {
+        if ((barren[index >>> 6] & (1L << index)) != 0) {
+            return BARREN;
+        }
+        return labels == null ? 0 : labels[index];
+    }
+
+    @Override
+    public void barrenWords(int from, int count, long[] words) {
+        int n = (count + 63) >>> 6;
+        int first = from >>> 6;
+        int shift = from & 63;
+        if (shift == 0) {
+            System.arraycopy(barren, first, words, 0, n);
+            return;
+        }
+        // each word straddles two words of the mask
+        for (int w=0; w<n; w++) {
+            long word = barren[first + w] >>> shift;
+            if (first + w + 1 < barren.length) {
+                word |= barren[first + w + 1] << (64 - shift);
+            }
+            words[w] = word;
+        }
+    }
+
+    @Override
+    public void setLabel(int index, int label) {
+        if (labels == null) {
+            reserveLabels();
+        }
+        labels[index] = label;
+    }
+
+    @Override
+    public void setLabels(int from, int to, int label) {
+        reserveLabels();
+        Arrays.fill(labels, from, to, label);
+    }
+
+    @Override
+    public void reserveLabels() {
+        if (labels == null) {
+            labels = new int[cells];
+        }
+    }
+
+    @Override
+    public void setBarren(int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        int first = from >>> 6;
+        int last = (to - 1) >>> 6;
+        // shifts only use the low 6 bits of the index
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> -to;
+        if (first == last) {
+            barren[first] |= firstMask & lastMask;
+            return;
+        }
+        barren[first] |= firstMask;
+        Arrays.fill(barren, first + 1, last, -1L);
+        barren[last] |= lastMask;
+    }
+
+    @Override
+    public void setFertile(int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        if (labels != null) {
+            Arrays.fill(labels, from, to, 0);
+        }
+        int first = from >>> 6;
+        int last = (to - 1) >>> 6;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> -to;
+        if (first == last) {
+            barren[first] &= ~(firstMask & lastMask);
+            return;
+        }
+        barren[first] &= ~firstMask;
+        Arrays.fill(barren, first + 1, last, 0L);
+        barren[last] &= ~lastMask;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(barren, 0L);
+        clearLabels();
+    }
+
+    @Override
+    public void clearLabels() {
+        if (labels != null) {
+            Arrays.fill(labels, 0);
+        }
+    }
+
+    @Override
+    public long maskBytes() {
+        return 8L * barren.length;
+    }
+}
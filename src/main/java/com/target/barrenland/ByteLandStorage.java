@@ -0,0 +1,100 @@
+package com.target.barrenland;
+
+import java.util.Arrays;
+
+/**
+ * LandStorage that keeps the barren mask as one byte per cell.
+ * Labels are kept in a separate int[], allocated the first time
+ * a cell is labeled.
+ *
+ * @author Alexis Johnson
+ * @version 1.0
+ */
+final class ByteLandStorage implements LandStorage {
+    private final byte[] barren;
+    private int[] labels; // null until the first label is written
+
+    ByteLandStorage(int cells) {
+        barren = new byte[cells];
+    }
+
+    private ByteLandStorage(byte[] barren, int[] labels) {
+        this.barren = barren;
+        this.labels = labels;
+    }
+
+    @Override
+    public LandStorage fork() {
+        return new ByteLandStorage(barren.clone(), labels == null ? null : labels.clone());
+    }
+
+    @Override
+    public int get(int index) {
+        if (barren[index] != 0) {
+            return BARREN;
+        }
+        return labels == null ? 0 : labels[index];
+    }
+
+    @Override
+    public void barrenWords(int from, int count, long[] words) {
+        Arrays.fill(words, 0, (count + 63) >>> 6, 0L);
+        for (int i=0; i<count; i++) {
+            if (barren[from + i] != 0) {
+                words[i >>> 6] |= 1L << i;
+            }
+        }
+    }
+
+    @Override
+    public void setLabel(int index, int label) {
+        if (labels == null) {
+            reserveLabels();
+        }
+        labels[index] = label;
+    }
+
+    @Override
+    public void setLabels(int from, int to, int label) {
+        reserveLabels();
+        Arrays.fill(labels, from, to, label);
+    }
+
+    @Override
+    public void reserveLabels() {
+        if (labels == null) {
+            labels = new int[barren.length];
+        }
+    }
+
+    @Override
+    public void setBarren(int from, int to) {
+        Arrays.fill(barren, from, to, (byte) 1);
+    }
+
+    @Override
+    public void setFertile(int from, int to) {
+        Arrays.fill(barren, from, to, (byte) 0);
+        if (labels != null) {
+            Arrays.fill(labels, from, to, 0);
+        }
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(barren, (byte) 0);
+        clearLabels();
+    }
+
+    @Override
+    public void clearLabels() {
+        if (labels != null) {
+            Arrays.fill(labels, 0);
+        }
+    }
+
+    @Override
+    public long maskBytes() {
+        return barren.length;
+    }
+}
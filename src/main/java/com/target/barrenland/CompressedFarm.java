@@ -0,0 +1,179 @@
+package com.target.barrenland;
+
+import java.awt.Point;
+import java.util.Arrays;
+
+/**
+ * A farm engine that never allocates the full land matrix.
+ *
+ * Instead of storing every coordinate, it only remembers the barren
+ * rectangles. When the fertile land is requested, the x axis is cut at
+ * the distinct rectangle edges: every rectangle starts and ends on a
+ * cut, so between two cuts every row has the same barren and fertile
+ * stretches. The farm is swept one such band at a time, and each band
+ * is labeled by a RunLabeler as a single row whose runs count the
+ * band's width. Neighboring bands share a full edge, so their runs are
+ * connected exactly when the real rows are.
+ *
+ * Memory grows with the number of rectangles and time with the number
+ * of rectangles times the number covering a band, never with the size
+ * of the farm, which makes farms of up to Integer.MAX_VALUE x
+ * Integer.MAX_VALUE practical.
+ *
+ * @author Alexis Johnson
+ * @version 1.0
+ */
+public class CompressedFarm extends AbstractFarm {
+    private final RectangleList rectangles = new RectangleList(); // barren rectangles
+
+    /**
+     * Construct CompressedFarm with the given width and length.
+     * Throws an InvalidBoundaryException if the length
+     * or width are not positive.
+     *
+     * @param width: size of the farm along x
+     * @param length: size of the farm along y
+     */
+    public CompressedFarm(int width, int length) throws InvalidBoundaryException {
+        super(width, length);
+    }
+
+    /**
+     * Removes every barren rectangle.
+     */
+    @Override
+    public void resetLand() {
+        rectangles.clear();
+    }
+
+    /**
+     * Records the rectangle spanned by the two given corners.
+     * No cells are written, so the cost does not depend on
+     * the size of the rectangle.
+     *
+     * @param a: One corner of the barren land
+     * @param b: The other corner of the barren land
+     */
+    @Override
+    public void makeBarren(Point a, Point b) throws InvalidBoundaryException {
+        if (outOfBounds(a) || outOfBounds(b)) {
+            throw new InvalidBoundaryException("Barren land coordinates must be in land matrix.");
+        }
+        rectangles.add(a, b);
+    }
+
+    @Override
+    public long[] getFertileAreas() {
+        return sweep(new RunLabeler());
+    }
+
+    /**
+     * Stops sweeping as soon as no region still to be found could be kept,
+     * see RunLabeler.isSettled().
+     */
+    @Override
+    protected long[] findLargest(int k, long min) {
+        return sweep(new RunLabeler(k, min));
+    }
+
+    /**
+     * Sweeps the farm one band of x at a time, stopping early if the
+     * labeler settles. Between two cuts the same rectangles cover every
+     * row, so a band is handed to the labeler as a single row whose runs
+     * weigh the band's width: the gaps between the y ranges of the
+     * rectangles that cover it.
+     *
+     * @param labeler: an empty labeler
+     * @return sorted areas returned by the labeler
+     */
+    private long[] sweep(RunLabeler labeler) {
+        int[] xs = cuts();
+        int count = rectangles.size();
+        // rectangles in order of their first band, and the band after their last
+        long[] order = new long[count];
+        int[] endBand = new int[count];
+        for (int r=0; r<count; r++) {
+            order[r] = ((long) Arrays.binarySearch(xs, rectangles.minX(r)) << 32) | r;
+            endBand[r] = Arrays.binarySearch(xs, rectangles.maxX(r) + 1);
+        }
+        Arrays.sort(order);
+
+        IntStack active = new IntStack(); // the rectangles covering the band
+        IntStack kept = new IntStack();
+        long[] byMinY = new long[16];
+        int next = 0;
+        for (int band=0; band<xs.length-1; band++) {
+            // drop the rectangles that ended before this band, add the ones starting in it
+            kept.clear();
+            for (int a=0; a<active.size(); a++) {
+                if (endBand[active.get(a)] > band) {
+                    kept.push(active.get(a));
+                }
+            }
+            IntStack swap = active;
+            active = kept;
+            kept = swap;
+            while (next < count && (int) (order[next] >>> 32) == band) {
+                active.push((int) order[next]);
+                next++;
+            }
+
+            // the fertile runs are the gaps between the sorted y ranges
+            int n = active.size();
+            if (byMinY.length < n) {
+                byMinY = new long[Math.max(n, byMinY.length * 2)];
+            }
+            for (int a=0; a<n; a++) {
+                int r = active.get(a);
+                byMinY[a] = ((long) rectangles.minY(r) << 32) | r;
+            }
+            Arrays.sort(byMinY, 0, n);
+            long bandWidth = xs[band + 1] - xs[band];
+            int y = 0; // first coordinate not known to be barren
+            for (int a=0; a<n; a++) {
+                int r = (int) byMinY[a];
+                if (rectangles.minY(r) > y) {
+                    labeler.addRun(y, rectangles.minY(r), bandWidth * (rectangles.minY(r) - y));
+                }
+                y = Math.max(y, rectangles.maxY(r) + 1);
+            }
+            if (y < length) {
+                labeler.addRun(y, length, bandWidth * (length - y));
+            }
+            labeler.endRow();
+            if (labeler.isSettled((long) (width - xs[band + 1]) * length)) {
+                break;
+            }
+        }
+        long[] areas = labeler.finish();
+        FertileAreas.radixSort(areas, areas.length);
+        return areas;
+    }
+
+    /**
+     * Collects the sorted, distinct cut positions along x: 0, the
+     * farm's width, and the first coordinate on either side of every
+     * rectangle edge.
+     *
+     * @return sorted array of distinct cuts
+     */
+    private int[] cuts() {
+        int[] cuts = new int[2*rectangles.size() + 2];
+        int n = 0;
+        cuts[n++] = 0;
+        cuts[n++] = width;
+        for (int r=0; r<rectangles.size(); r++) {
+            cuts[n++] = rectangles.minX(r);
+            cuts[n++] = rectangles.maxX(r) + 1;
+        }
+        Arrays.sort(cuts);
+        // remove duplicates in place
+        int distinct = 1;
+        for (int i=1; i<n; i++) {
+            if (cuts[i] != cuts[distinct - 1]) {
+                cuts[distinct++] = cuts[i];
+            }
+        }
+        return Arrays.copyOf(cuts, distinct);
+    }
+}
@@ -1,15 +1,28 @@
 package com.target.barrenland;
 
 import java.awt.Point;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Stack;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Used to model a farm with a land matrix of size width x length.
  * Land is initialized to land[i][j] = 0 for all i in (0,width-1) and
- * j in (0,length-1).
+ * j in (0,length-1). The matrix is stored flattened in row-major order
+ * (land[i][j] lives at index i*length + j) by a LandStorage chosen at
+ * construction, see LandStorageType.
  *
  * Barren portions can be added to the matrix by calling makeBarren()
  * with the corners of the barren rectangle as arguments. Barren portions
@@ -32,14 +45,70 @@ import java.util.Stack;
  * fertile areas have been found. The function sorts the list of fertile areas from least
  * to greatest and returns it.
  *
+ * The labels and areas found by getFertileLand() are kept as a region
+ * index. Until the farm is reset, a later makeBarren() only re-labels the
+ * region(s) its rectangle cuts into, and getFertileLand() answers from the
+ * index without scanning the land matrix again. Labels handed out this way
+ * are no longer in row-major order, but every region still has its own.
+ * getFertileLand() can be called any number of times: until the land
+ * changes again it returns the same unmodifiable list, see getModCount().
+ *
+ * Every barren rectangle is remembered with an id, so it can be taken
+ * away again with removeBarren(). Coordinates another rectangle still
+ * covers stay barren; the freed coordinates are merged into the regions
+ * around them without rescanning the farm.
+ *
+ * The region index can also be queried directly: getRegion() gives the
+ * label of any coordinate and getRegionArea() the area of a label, both
+ * in O(1), and getRegionRuns() streams a region's coordinates lazily,
+ * row by row, starting from a coordinate remembered for each label.
+ *
+ * With setCollectingStatistics(true), the analysis also measures the
+ * bounding box, perimeter and centroid of every region as it floods it,
+ * see RegionStatistics.
+ *
+ * save() writes the farm to a compact binary snapshot that load() can
+ * restore far faster than replaying its rectangles, see FarmSnapshot.
+ * fork() copies a farm in memory; with LandStorageType.PAGED the fork
+ * shares the land copy-on-write and costs only what it changes.
+ *
+ * After enableMetrics(), the farm times each phase of its work and
+ * counts what it did, see FarmMetrics.
+ *
  * @author Alexis Johnson
  * @version 1.0
  * @since 2020-4-12
  */
-public class Farm {
-    private int[][] land; // the matrix representing the farm field
-    private final int width;
-    private final int length;
+public class Farm extends AbstractFarm {
+    // largest array the JVM will reliably allocate
+    private static final int MAX_CELLS = Integer.MAX_VALUE - 8;
+
+    private final LandStorage land; // the matrix representing the farm field, flattened
+    private final LandStorageType storageType;
+    private int[][] landView; // copy of land handed out by getLand(), null when stale
+    private final IntStack stack = new IntStack(); // DFS stack of packed coordinates, reused across calls
+    private final IntStack regionAreas = new IntStack(); // area of label L at L-1, 0 once the region is gone
+    private final IntStack areas = new IntStack(); // areas of the live regions, sorted
+    private final IntStack regionSeeds = new IntStack(); // a coordinate of label L at L-1
+    private final IntStack freeLabels = new IntStack(); // labels of gone regions that no coordinate carries
+    private boolean seeded; // regionSeeds has an entry for every label
+    private boolean indexed; // labels and regionAreas describe the current land
+    private boolean labeled; // labels have been written since the storage was cleared
+    private final Map<Integer, BarrenRectangle> barren = new LinkedHashMap<>(); // barren rectangles by id
+    private int nextBarrenId = 1;
+    private LabelingMode labelingMode = LabelingMode.FLOOD_FILL;
+    private TwoPassLabeler twoPass; // created the first time TWO_PASS is used
+    private ParallelLabeler parallel; // created the first time PARALLEL is used
+    private WordRunLabeler wordRuns; // created the first time WORD_RUNS is used
+    private int parallelism; // threads used by PARALLEL, 0 for the common pool
+    private ForkJoinPool pool; // pool this farm created for PARALLEL, null until needed
+    private FarmMetrics metrics; // null unless enableMetrics() was called
+    private boolean collectingStatistics;
+    private RegionStatistics statistics; // from the last full analysis, null once the land changes
+    private RegionStatistics filling; // statistics being collected by the running analysis
+    private int modCount; // number of changes to the land, see getModCount()
+    private List<Integer> fertileLand; // unmodifiable result of getFertileLand(), null until asked
+    private int fertileLandModCount; // modCount when fertileLand was built
 
     // -1 -> barren
     // 0 -> not checked
@@ -54,21 +123,72 @@ public class Farm {
      * @param width: Candidate rank within a party
      */
     public Farm(int width, int length) throws InvalidBoundaryException {
-        // array representing each coordinate in the farm
-        // Java initializes all ints to 0
-        if (width <= 0 || length <= 0) {
-            throw new InvalidBoundaryException("Length and width must be greater than 0.");
+        this(width, length, LandStorageType.INT);
+    }
+
+    /**
+     * Construct Farm with the given length and width, storing
+     * the land matrix with the given storage type.
+     * Throws an InvalidBoundaryException if the length
+     * or width are negative, or if the matrix would not fit
+     * in a single array (use CompressedFarm for such farms).
+     *
+     * @param width: size of the farm along x
+     * @param length: size of the farm along y
+     * @param storageType: how the land matrix is stored
+     */
+    public Farm(int width, int length, LandStorageType storageType) throws InvalidBoundaryException {
+        super(width, length);
+        if ((long) width * length > MAX_CELLS) {
+            throw new InvalidBoundaryException("Farm is too large for a land matrix. Use CompressedFarm instead.");
         }
-        this.width = width;
-        this.length = length;
-        land = new int[width][length];
+        this.storageType = storageType;
+        // all cells start out fertile and not checked
+        land = storageType.create(width * length);
+    }
+
+    /**
+     * Construct a fork of parent on the given copy of its land, see fork().
+     *
+     * @param parent: the farm being forked
+     * @param land: the fork's land storage
+     */
+    private Farm(Farm parent, LandStorage land) throws InvalidBoundaryException {
+        super(parent.width, parent.length);
+        this.storageType = parent.storageType;
+        this.land = land;
+        regionAreas.copyFrom(parent.regionAreas);
+        areas.copyFrom(parent.areas);
+        regionSeeds.copyFrom(parent.regionSeeds);
+        freeLabels.copyFrom(parent.freeLabels);
+        seeded = parent.seeded;
+        indexed = parent.indexed;
+        labeled = parent.labeled;
+        barren.putAll(parent.barren);
+        nextBarrenId = parent.nextBarrenId;
+        labelingMode = parent.labelingMode;
+        // same parallelism, but the fork creates a pool of its own when it needs one
+        parallelism = parent.parallelism;
+        collectingStatistics = parent.collectingStatistics;
+        statistics = parent.statistics;
+        modCount = parent.modCount;
+        fertileLand = parent.fertileLand;
+        fertileLandModCount = parent.fertileLandModCount;
     }
 
     /**
      * Resets land to all 0's. Used in test cases.
+     * The existing storage is cleared rather than reallocated.
      */
+    @Override
     public void resetLand() {
-        land = new int[width][length];
+        land.clear();
+        landView = null;
+        indexed = false;
+        labeled = false;
+        statistics = null;
+        modCount++;
+        barren.clear();
     }
 
     /**
@@ -87,62 +207,838 @@ public class Farm {
      * @param a: One corner of the barren land, represented with java.awt.Point
      * @param b: The other corner of the barren land
      */
+    @Override
     public void makeBarren(Point a, Point b) throws InvalidBoundaryException {
+        addBarren(a, b);
+    }
+
+    /**
+     * Same as makeBarren(), but returns an id that can be
+     * passed to removeBarren() to make the rectangle fertile again.
+     *
+     * @param a: One corner of the barren land
+     * @param b: The other corner of the barren land
+     * @return the id of the barren rectangle
+     */
+    public int addBarren(Point a, Point b) throws InvalidBoundaryException {
         if (outOfBounds(a) || outOfBounds(b)) {
             throw new InvalidBoundaryException("Barren land coordinates must be in land matrix.");
         }
-        // change all coordinates in the rectangle to -1
-        for (int i=Math.min(a.x,b.x); i<=Math.max(a.x,b.x); i++) {
-            for (int j=Math.min(a.y,b.y); j<=Math.max(a.y,b.y); j++) {
-                land[i][j] = -1;
+        BarrenRectangle rectangle = new BarrenRectangle(a, b);
+        long start = metrics == null ? 0 : System.nanoTime();
+        long allocated = metrics == null ? 0 : FarmMetrics.threadAllocatedBytes();
+        paintBarren(rectangle);
+        if (metrics != null) {
+            metrics.addCellsWritten(rectangle.area());
+            paintCompleted(start, allocated);
+        }
+        int id = nextBarrenId++;
+        barren.put(id, rectangle);
+        return id;
+    }
+
+    /**
+     * Makes a whole batch of rectangles barren in one pass, see addBarren(Collection).
+     *
+     * @param rectangles: the barren rectangles
+     */
+    @Override
+    public void makeBarren(Collection<BarrenRectangle> rectangles) throws InvalidBoundaryException {
+        addBarren(rectangles);
+    }
+
+    /**
+     * Makes a whole batch of rectangles barren and returns their ids.
+     * The batch is checked up front: if any rectangle is off the farm,
+     * an InvalidBoundaryException is thrown and nothing is changed.
+     *
+     * Rather than writing every coordinate of every rectangle, which
+     * costs the sum of their areas, the batch is turned into a 2D
+     * difference array that is swept one row at a time. Each rectangle
+     * adds +1/-1 at its first and last column when the sweep enters its
+     * first row and undoes that after its last row; a running sum over
+     * the row then gives the number of rectangles covering each
+     * coordinate, and every run with a count above 0 is written once.
+     * The cost is O(width * length + N) no matter how much the
+     * rectangles overlap, and only one row of the array is kept.
+     *
+     * A batch invalidates the region index, so the next
+     * getFertileLand() analyzes the farm from scratch.
+     *
+     * @param rectangles: the barren rectangles
+     * @return the ids of the rectangles, in iteration order
+     */
+    public int[] addBarren(Collection<BarrenRectangle> rectangles) throws InvalidBoundaryException {
+        checkBounds(rectangles);
+        long start = metrics == null ? 0 : System.nanoTime();
+        long allocated = metrics == null ? 0 : FarmMetrics.threadAllocatedBytes();
+        long written = 0;
+        int n = rectangles.size();
+        BarrenRectangle[] batch = rectangles.toArray(new BarrenRectangle[n]);
+        // bucket the rectangles by the row they start in and the row after
+        // they end in (counting sort, so the batch costs O(width + N))
+        int[] firstStart = new int[width + 2];
+        int[] firstEnd = new int[width + 2];
+        int[] startsAt = bucketByRow(batch, false, firstStart);
+        int[] endsAt = bucketByRow(batch, true, firstEnd);
+
+        int[] diff = new int[length + 1];
+        int active = 0;
+        for (int x=0; x<width; x++) {
+            for (int r=firstStart[x]; r<firstStart[x+1]; r++) {
+                BarrenRectangle rectangle = batch[startsAt[r]];
+                diff[rectangle.getMinY()]++;
+                diff[rectangle.getMaxY() + 1]--;
+                active++;
             }
+            for (int r=firstEnd[x]; r<firstEnd[x+1]; r++) {
+                BarrenRectangle rectangle = batch[endsAt[r]];
+                diff[rectangle.getMinY()]--;
+                diff[rectangle.getMaxY() + 1]++;
+                active--;
+            }
+            if (active == 0) {
+                continue;
+            }
+            int count = 0;
+            int runStart = -1;
+            for (int y=0; y<=length; y++) {
+                count += diff[y];
+                if (count > 0 && runStart < 0) {
+                    runStart = y;
+                } else if (count == 0 && runStart >= 0) {
+                    land.setBarren(x*length + runStart, x*length + y);
+                    written += y - runStart;
+                    runStart = -1;
+                }
+            }
+        }
+
+        landView = null;
+        indexed = false;
+        statistics = null;
+        modCount++;
+        int[] ids = new int[n];
+        for (int r=0; r<n; r++) {
+            ids[r] = nextBarrenId++;
+            barren.put(ids[r], batch[r]);
         }
+        if (metrics != null) {
+            metrics.addCellsWritten(written);
+            paintCompleted(start, allocated);
+        }
+        return ids;
     }
 
     /**
-     * Returns a boolean indicating whether the given
-     * point lies on the land matrix.
+     * Records a finished PAINT phase with metrics.
      *
-     * @param p: A point with coordinates x and y
+     * @param start: System.nanoTime() when the phase started
+     * @param allocated: the thread's allocated bytes when the phase started
+     */
+    private void paintCompleted(long start, long allocated) {
+        long nanos = System.nanoTime() - start;
+        metrics.addBytesAllocated(allocated, FarmMetrics.threadAllocatedBytes());
+        if (indexed) {
+            metrics.setRegions(areas.size());
+        }
+        metrics.phaseCompleted(FarmPhase.PAINT, nanos);
+    }
+
+    /**
+     * Counting sort of the batch by first row (or by the row after
+     * the last one), returning the rectangles' positions in the batch.
+     * The rectangles of row x end up at order[first[x]] to
+     * order[first[x+1]-1].
+     *
+     * @param batch: the rectangles
+     * @param byEnd: sort by the row after the last row instead of the first row
+     * @param first: receives where each row's rectangles start, width+2 long
+     * @return positions in batch, sorted by row
+     */
+    private int[] bucketByRow(BarrenRectangle[] batch, boolean byEnd, int[] first) {
+        for (BarrenRectangle rectangle : batch) {
+            first[(byEnd ? rectangle.getMaxX() + 1 : rectangle.getMinX()) + 1]++;
+        }
+        for (int x=1; x<=width+1; x++) {
+            first[x] += first[x-1];
+        }
+        int[] next = Arrays.copyOf(first, first.length);
+        int[] order = new int[batch.length];
+        for (int r=0; r<batch.length; r++) {
+            int row = byEnd ? batch[r].getMaxX() + 1 : batch[r].getMinX();
+            order[next[row]++] = r;
+        }
+        return order;
+    }
+
+    /**
+     * Changes all coordinates of the rectangle to -1, keeping
+     * the region index up to date.
+     *
+     * @param rectangle: the barren rectangle
+     */
+    private void paintBarren(BarrenRectangle rectangle) {
+        int minX = rectangle.getMinX();
+        int maxX = rectangle.getMaxX();
+        int minY = rectangle.getMinY();
+        int maxY = rectangle.getMaxY();
+        landView = null;
+        statistics = null;
+        modCount++;
+        IntStack cut = indexed ? new IntStack(8) : null;
+        if (indexed) {
+            // forget every region the rectangle cuts into
+            for (int i=minX; i<=maxX; i++) {
+                for (int j=minY; j<=maxY; j++) {
+                    int label = land.get(i*length + j);
+                    if (label > 0 && regionAreas.get(label-1) != 0) {
+                        areas.removeSorted(regionAreas.get(label-1));
+                        regionAreas.set(label-1, 0);
+                        cut.push(label);
+                    }
+                }
+            }
+        }
+        // change all coordinates in the rectangle to -1,
+        // one contiguous run of the flattened matrix per x
+        for (int i=minX; i<=maxX; i++) {
+            land.setBarren(i*length + minY, i*length + maxY + 1);
+        }
+        if (indexed) {
+            // whatever is left of a cut region touches the rectangle,
+            // so re-label from the coordinates just outside its edges
+            for (int i=minX; i<=maxX; i++) {
+                relabelCut(i, minY-1);
+                relabelCut(i, maxY+1);
+            }
+            for (int j=minY; j<=maxY; j++) {
+                relabelCut(minX-1, j);
+                relabelCut(maxX+1, j);
+            }
+            // every piece of a cut region has a new label now,
+            // so the old labels can be given to later regions
+            for (int c=0; c<cut.size(); c++) {
+                freeLabels.push(cut.get(c));
+            }
+        }
+    }
+
+    /**
+     * Takes away the barren rectangle with the given id. Coordinates
+     * that another barren rectangle still covers stay barren. If the
+     * farm has been analyzed, the freed coordinates are merged into the
+     * regions around them right away.
+     *
+     * @param id: the id returned by addBarren()
+     */
+    public void removeBarren(int id) {
+        BarrenRectangle rectangle = barren.remove(id);
+        if (rectangle == null) {
+            throw new IllegalArgumentException("No barren rectangle with id " + id + ".");
+        }
+        long start = metrics == null ? 0 : System.nanoTime();
+        long allocated = metrics == null ? 0 : FarmMetrics.threadAllocatedBytes();
+        landView = null;
+        statistics = null;
+        modCount++;
+        List<BarrenRectangle> overlapping = new ArrayList<>();
+        for (BarrenRectangle other : barren.values()) {
+            if (other.intersects(rectangle)) {
+                overlapping.add(other);
+            }
+        }
+        // free the parts of each row that no other rectangle covers
+        IntStack freed = new IntStack(); // [from, to) pairs of flat indexes
+        long[] covered = new long[overlapping.size()];
+        for (int i=rectangle.getMinX(); i<=rectangle.getMaxX(); i++) {
+            int runs = 0;
+            for (BarrenRectangle other : overlapping) {
+                if (other.getMinX() <= i && i <= other.getMaxX()) {
+                    int from = Math.max(other.getMinY(), rectangle.getMinY());
+                    int to = Math.min(other.getMaxY(), rectangle.getMaxY()) + 1;
+                    covered[runs++] = ((long) from << 32) | to;
+                }
+            }
+            Arrays.sort(covered, 0, runs);
+            int next = rectangle.getMinY();
+            for (int r=0; r<runs; r++) {
+                int from = (int) (covered[r] >>> 32);
+                int to = (int) covered[r];
+                if (from > next) {
+                    freed.push(i*length + next);
+                    freed.push(i*length + from);
+                }
+                next = Math.max(next, to);
+            }
+            if (next <= rectangle.getMaxY()) {
+                freed.push(i*length + next);
+                freed.push(i*length + rectangle.getMaxY() + 1);
+            }
+        }
+        for (int r=0; r<freed.size(); r+=2) {
+            land.setFertile(freed.get(r), freed.get(r+1));
+        }
+        if (indexed) {
+            for (int r=0; r<freed.size(); r+=2) {
+                for (int c=freed.get(r); c<freed.get(r+1); c++) {
+                    if (land.get(c) == 0) {
+                        reconnect(c, rectangle);
+                    }
+                }
+            }
+        }
+        if (metrics != null) {
+            long cells = 0;
+            for (int r=0; r<freed.size(); r+=2) {
+                cells += freed.get(r+1) - freed.get(r);
+            }
+            metrics.addCellsWritten(cells);
+            paintCompleted(start, allocated);
+        }
+    }
+
+    /**
+     * Merges a group of freed coordinates with the regions it touches.
+     * The group is labeled first. Every region it touches lies just
+     * outside the removed rectangle, so its edges are checked for
+     * neighbors. The largest neighbor keeps its label; the group and
+     * the other neighbors are re-labeled to it, so the cost depends
+     * on the smaller regions only.
+     *
+     * @param start: a freed coordinate that isn't labeled yet
+     * @param rectangle: the removed rectangle
+     */
+    private void reconnect(int start, BarrenRectangle rectangle) {
+        int group = newLabel(start);
+        int area = floodFill(start, group);
+        // labels of the regions the group touches, and a coordinate of each
+        IntStack neighbors = new IntStack(8);
+        for (int i=rectangle.getMinX(); i<=rectangle.getMaxX(); i++) {
+            findNeighbor(neighbors, group, i, rectangle.getMinY(), i, rectangle.getMinY()-1);
+            findNeighbor(neighbors, group, i, rectangle.getMaxY(), i, rectangle.getMaxY()+1);
+        }
+        for (int j=rectangle.getMinY(); j<=rectangle.getMaxY(); j++) {
+            findNeighbor(neighbors, group, rectangle.getMinX(), j, rectangle.getMinX()-1, j);
+            findNeighbor(neighbors, group, rectangle.getMaxX(), j, rectangle.getMaxX()+1, j);
+        }
+        int keep = group;
+        int keepArea = -1;
+        for (int n=0; n<neighbors.size(); n+=2) {
+            int label = neighbors.get(n);
+            if (regionAreas.get(label-1) > keepArea) {
+                keep = label;
+                keepArea = regionAreas.get(label-1);
+            }
+        }
+        if (keep != group) {
+            areas.removeSorted(keepArea);
+            floodFill(start, keep);
+            for (int n=0; n<neighbors.size(); n+=2) {
+                int label = neighbors.get(n);
+                if (label != keep) {
+                    areas.removeSorted(regionAreas.get(label-1));
+                    area += regionAreas.get(label-1);
+                    regionAreas.set(label-1, 0);
+                    floodFill(neighbors.get(n+1), keep);
+                    freeLabels.push(label);
+                }
+            }
+            area += keepArea;
+            freeLabels.push(group);
+        }
+        regionAreas.set(keep-1, area);
+        areas.insertSorted(area);
+    }
+
+    /**
+     * Records the label of the coordinate (x,y) outside a removed
+     * rectangle if it is fertile and its neighbor (edgeX,edgeY) on the
+     * rectangle's edge belongs to the given group.
+     */
+    private void findNeighbor(IntStack neighbors, int group, int edgeX, int edgeY, int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= length || land.get(edgeX*length + edgeY) != group) {
+            return;
+        }
+        int label = land.get(x*length + y);
+        if (label <= 0 || label == group) {
+            return;
+        }
+        for (int n=0; n<neighbors.size(); n+=2) {
+            if (neighbors.get(n) == label) {
+                return;
+            }
+        }
+        neighbors.push(label);
+        neighbors.push(x*length + y);
+    }
+
+    /**
+     * get the barren rectangles that are currently on the farm
+     *
+     * @return unmodifiable map from id to rectangle
+     */
+    public Map<Integer, BarrenRectangle> getBarrenRectangles() {
+        return Collections.unmodifiableMap(barren);
+    }
+
+    /**
+     * If (x,y) belongs to a region that was cut by a new barren
+     * rectangle and hasn't been re-labeled yet, flood fills its
+     * piece of the region with a new label and indexes its area.
+     *
+     * @param x : the x coordinate in the matrix
+     * @param y : the y coordinate in the matrix
      */
-    private boolean outOfBounds(Point p) {
-        return p.x < 0 || p.y < 0 || p.x >= width || p.y >= length;
+    private void relabelCut(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= length) {
+            return;
+        }
+        int label = land.get(x*length + y);
+        if (label > 0 && regionAreas.get(label-1) == 0) {
+            int piece = newLabel(x*length + y);
+            int area = floodFill(x*length + y, piece);
+            regionAreas.set(piece-1, area);
+            areas.insertSorted(area);
+        }
     }
 
+    /**
+     * Picks the label of a new region. The label of a region that is
+     * gone and no longer on any coordinate is reused first, so toggling
+     * rectangles on an indexed farm doesn't grow the index without end.
+     *
+     * @param seed: a coordinate of the new region
+     * @return the label, with an area of 0 until the caller sets it
+     */
+    private int newLabel(int seed) {
+        if (!freeLabels.isEmpty()) {
+            int label = freeLabels.pop();
+            if (seeded) {
+                regionSeeds.set(label-1, seed);
+            }
+            return label;
+        }
+        regionAreas.push(0);
+        if (seeded) {
+            regionSeeds.push(seed);
+        }
+        return regionAreas.size();
+    }
+
+    /**
+     * Returns the area of every connected fertile region, sorted from
+     * least to greatest. The list is unmodifiable and is built once per
+     * change to the land: until the next change (see getModCount()),
+     * every call returns the same list without scanning or allocating.
+     *
+     * @return sorted list of fertile areas
+     */
+    @Override
     public List<Integer> getFertileLand() {
-        List<Integer> areas = new ArrayList<>();
+        if (!indexed) {
+            analyze();
+        }
+        if (fertileLand == null || fertileLandModCount != modCount) {
+            List<Integer> result = new ArrayList<>(areas.size());
+            for (int a=0; a<areas.size(); a++) {
+                result.add(areas.get(a));
+            }
+            fertileLand = Collections.unmodifiableList(result);
+            fertileLandModCount = modCount;
+        }
+        return fertileLand;
+    }
+
+    /**
+     * Same areas as getFertileLand(), copied straight from the region
+     * index without boxing. A farm has at most MAX_CELLS coordinates, so
+     * its areas always fit in an int.
+     *
+     * @return sorted array of fertile areas
+     */
+    @Override
+    public long[] getFertileAreas() {
+        if (!indexed) {
+            analyze();
+        }
+        long[] result = new long[areas.size()];
+        for (int a=0; a<result.length; a++) {
+            result[a] = areas.get(a);
+        }
+        return result;
+    }
+
+    /**
+     * Same result as the k largest areas of getFertileLand() that are at
+     * least min, see largestAreas() and areasAtLeast().
+     *
+     * If the farm is indexed, the areas come from the index. Otherwise,
+     * in FLOOD_FILL mode, the farm is scanned as usual while a bounded
+     * heap keeps the k largest areas found so far. A region first found
+     * at coordinate c can be no larger than the cells from c onwards, so
+     * the scan stops as soon as that bound can no longer reach min or
+     * beat the smallest area in a full heap. A scan that stops early does
+     * not index the farm.
+     *
+     * @param k: most areas returned, at least 1
+     * @param min: smallest area returned, at least 1
+     * @return sorted array of areas
+     */
+    @Override
+    protected long[] findLargest(int k, long min) {
+        if (!indexed && labelingMode == LabelingMode.FLOOD_FILL) {
+            return scanLargest(k, min);
+        }
+        if (!indexed) {
+            analyze();
+        }
+        int from = Math.max(0, areas.size() - k);
+        while (from < areas.size() && areas.get(from) < min) {
+            from++;
+        }
+        long[] result = new long[areas.size() - from];
+        for (int a=from; a<areas.size(); a++) {
+            result[a - from] = areas.get(a);
+        }
+        return result;
+    }
+
+    /**
+     * Flood fills the farm in row-major order, keeping the k largest
+     * areas of at least min, and stops once no region that is still to
+     * be found could be kept. With metrics, the phases are timed like
+     * analyze() times them, but only the coordinates scanned before the
+     * stop are counted, and the regions are the ones found by then.
+     *
+     * @param k: most areas kept
+     * @param min: smallest area kept, at least 1
+     * @return sorted array of areas
+     */
+    private long[] scanLargest(int k, long min) {
+        long start = metrics == null ? 0 : System.nanoTime();
+        long allocated = metrics == null ? 0 : FarmMetrics.threadAllocatedBytes();
+        long fillNanos = 0;
+        landView = null;
+        if (labeled) {
+            land.clearLabels();
+        }
+        labeled = true;
+        LongMinHeap largest = new LongMinHeap(k);
         int nextFill = 1;
-        for (int i=0; i<width; i++) {
-            for (int j=0; j<length; j++) {
-                if (land[i][j] == 0) {
-                    areas.add(floodFill(new Point(i,j), nextFill));
+        int cells = width * length;
+        int scanned = cells; // coordinates looked at before the scan stopped
+        for (int c=0; c<cells; c++) {
+            // a region found from here on has at most cells-c coordinates
+            int bound = cells - c;
+            if (bound < min || (largest.isFull() && bound <= largest.min())) {
+                scanned = c;
+                break;
+            }
+            if (land.get(c) == 0) {
+                long fillStart = metrics == null ? 0 : System.nanoTime();
+                int area = floodFill(c, nextFill++);
+                if (metrics != null) {
+                    fillNanos += System.nanoTime() - fillStart;
+                }
+                if (area >= min) {
+                    largest.offer(area);
+                }
+            }
+        }
+        long sortStart = metrics == null ? 0 : System.nanoTime();
+        long[] result = largest.toSortedArray();
+        if (metrics != null) {
+            long sortNanos = System.nanoTime() - sortStart;
+            metrics.addCellsScanned(scanned);
+            metrics.setRegions(nextFill - 1);
+            metrics.addBytesAllocated(allocated, FarmMetrics.threadAllocatedBytes());
+            metrics.phaseCompleted(FarmPhase.SCAN, sortStart - start - fillNanos);
+            metrics.phaseCompleted(FarmPhase.FLOOD_FILL, fillNanos);
+            metrics.phaseCompleted(FarmPhase.SORT, sortNanos);
+        }
+        return result;
+    }
+
+    /**
+     * Labels every fertile region from scratch with the current
+     * labeling mode and rebuilds the region index.
+     */
+    private void analyze() {
+        long start = metrics == null ? 0 : System.nanoTime();
+        long allocated = metrics == null ? 0 : FarmMetrics.threadAllocatedBytes();
+        long fillNanos = 0;
+        landView = null;
+        filling = collectingStatistics ? new RegionStatistics() : null;
+        if (labeled) {
+            land.clearLabels();
+        }
+        labeled = true;
+        regionAreas.clear();
+        regionSeeds.clear();
+        freeLabels.clear();
+        // the labelers don't report where their regions are, see ensureSeeds()
+        seeded = labelingMode == LabelingMode.FLOOD_FILL;
+        if (labelingMode == LabelingMode.TWO_PASS) {
+            if (twoPass == null) {
+                twoPass = new TwoPassLabeler();
+            }
+            twoPass.label(land, width, length, regionAreas);
+        } else if (labelingMode == LabelingMode.WORD_RUNS) {
+            if (wordRuns == null) {
+                wordRuns = new WordRunLabeler();
+            }
+            wordRuns.label(land, width, length, regionAreas);
+        } else if (labelingMode == LabelingMode.PARALLEL) {
+            if (parallel == null) {
+                parallel = new ParallelLabeler(ParallelLabeler.DEFAULT_TILE_SIZE);
+            }
+            parallel.label(land, width, length, regionAreas, parallelPool());
+        } else {
+            int nextFill = 1;
+            int cells = width * length;
+            // row-major order, same as iterating land[i][j]
+            for (int c=0; c<cells; c++) {
+                if (land.get(c) == 0) {
+                    if (filling != null) {
+                        filling.start(nextFill);
+                    }
+                    long fillStart = metrics == null ? 0 : System.nanoTime();
+                    regionAreas.push(floodFill(c, nextFill));
+                    regionSeeds.push(c);
+                    if (metrics != null) {
+                        fillNanos += System.nanoTime() - fillStart;
+                    }
                     nextFill++;
                 }
             }
         }
-        Collections.sort(areas);
-        return areas;
+        if (collectingStatistics && labelingMode != LabelingMode.FLOOD_FILL) {
+            filling = RegionStatistics.scan(land, width, length, regionAreas.size());
+        }
+        statistics = filling;
+        filling = null;
+        long sortStart = metrics == null ? 0 : System.nanoTime();
+        areas.clear();
+        for (int r=0; r<regionAreas.size(); r++) {
+            areas.push(regionAreas.get(r));
+        }
+        areas.sort();
+        indexed = true;
+        if (metrics != null) {
+            long sortNanos = System.nanoTime() - sortStart;
+            metrics.addCellsScanned((long) width * length);
+            metrics.setRegions(areas.size());
+            metrics.addBytesAllocated(allocated, FarmMetrics.threadAllocatedBytes());
+            metrics.phaseCompleted(FarmPhase.SCAN, sortStart - start - fillNanos);
+            if (labelingMode == LabelingMode.FLOOD_FILL) {
+                metrics.phaseCompleted(FarmPhase.FLOOD_FILL, fillNanos);
+            }
+            metrics.phaseCompleted(FarmPhase.SORT, sortNanos);
+        }
+    }
+
+    /**
+     * Returns the label of the fertile region containing (x,y), or -1
+     * if the coordinate is barren. Labels are the ones getLand() shows;
+     * they stay valid until the land changes. Analyzes the farm first
+     * if needed, otherwise O(1).
+     *
+     * @param x: the x coordinate in the matrix
+     * @param y: the y coordinate in the matrix
+     * @return label of the region, or -1
+     */
+    public int getRegion(int x, int y) throws InvalidBoundaryException {
+        if (x < 0 || y < 0 || x >= width || y >= length) {
+            throw new InvalidBoundaryException("Coordinates must be in land matrix.");
+        }
+        if (!indexed) {
+            analyze();
+        }
+        return land.get(x*length + y);
+    }
+
+    /**
+     * Same as getRegion(p.x, p.y).
+     *
+     * @param p: A point with coordinates x and y
+     * @return label of the region, or -1
+     */
+    public int getRegion(Point p) throws InvalidBoundaryException {
+        return getRegion(p.x, p.y);
+    }
+
+    /**
+     * Returns the area of the region with the given label.
+     * Analyzes the farm first if needed, otherwise O(1).
+     *
+     * @param region: a label returned by getRegion()
+     * @return area of the region
+     */
+    public int getRegionArea(int region) {
+        if (!indexed) {
+            analyze();
+        }
+        checkRegion(region);
+        return regionAreas.get(region-1);
+    }
+
+    /**
+     * Streams the runs of coordinates that make up the region with the
+     * given label, one row at a time from its first row to its last.
+     * A region is connected, so it covers every row in between.
+     *
+     * The stream reads the land matrix as it goes: it scans only the
+     * region's rows, and only as far as it is consumed. The farm must
+     * not be changed while the stream is in use.
+     *
+     * @param region: a label returned by getRegion()
+     * @return lazy stream of the region's runs
+     */
+    public Stream<FertileRun> getRegionRuns(int region) {
+        if (!indexed) {
+            analyze();
+        }
+        checkRegion(region);
+        ensureSeeds();
+        return StreamSupport.stream(new RegionRuns(region, regionSeeds.get(region-1) / length), false);
+    }
+
+    /**
+     * Streams every coordinate of the region with the given label,
+     * in row-major order, see getRegionRuns().
+     *
+     * @param region: a label returned by getRegion()
+     * @return lazy stream of the region's coordinates
+     */
+    public Stream<Point> getRegionPoints(int region) {
+        return getRegionRuns(region).flatMap(run -> {
+            Stream.Builder<Point> points = Stream.builder();
+            for (int y=run.getMinY(); y<=run.getMaxY(); y++) {
+                points.add(new Point(run.getX(), y));
+            }
+            return points.build();
+        });
+    }
+
+    /**
+     * Throws an IllegalArgumentException unless region
+     * is the label of a region that is still on the farm.
+     */
+    private void checkRegion(int region) {
+        if (region < 1 || region > regionAreas.size() || regionAreas.get(region-1) == 0) {
+            throw new IllegalArgumentException("No fertile region with id " + region + ".");
+        }
+    }
+
+    /**
+     * Finds a coordinate of every label if the labels were
+     * written by a labeler, which doesn't report them.
+     */
+    private void ensureSeeds() {
+        if (seeded) {
+            return;
+        }
+        regionSeeds.clear();
+        for (int r=0; r<regionAreas.size(); r++) {
+            regionSeeds.push(-1);
+        }
+        int cells = width * length;
+        for (int c=0; c<cells; c++) {
+            int label = land.get(c);
+            if (label > 0 && regionSeeds.get(label-1) < 0) {
+                regionSeeds.set(label-1, c);
+            }
+        }
+        seeded = true;
+    }
+
+    /**
+     * Walks the rows of one region, see getRegionRuns().
+     */
+    private final class RegionRuns extends Spliterators.AbstractSpliterator<FertileRun> {
+        private final int region;
+        private int x; // current row, -1 until the first row is found
+        private int y; // where to continue scanning the current row
+        private boolean found; // whether the current row has a run yet
+        private final int seedRow;
+
+        RegionRuns(int region, int seedRow) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.DISTINCT);
+            this.region = region;
+            this.seedRow = seedRow;
+            this.x = -1;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super FertileRun> action) {
+            if (x < 0) {
+                // the region's rows are contiguous, so walk up from
+                // the seed's row until a row doesn't have the region
+                x = seedRow;
+                while (x > 0 && rowHasRegion(x-1)) {
+                    x--;
+                }
+            }
+            while (x < width) {
+                int row = x*length;
+                while (y < length && land.get(row + y) != region) {
+                    y++;
+                }
+                if (y < length) {
+                    int start = y;
+                    while (y < length && land.get(row + y) == region) {
+                        y++;
+                    }
+                    found = true;
+                    action.accept(new FertileRun(x, start, y-1));
+                    return true;
+                }
+                if (!found) {
+                    x = width; // the region ended on the row before
+                    break;
+                }
+                x++;
+                y = 0;
+                found = false;
+            }
+            return false;
+        }
+
+        private boolean rowHasRegion(int row) {
+            for (int j=0; j<length; j++) {
+                if (land.get(row*length + j) == region) {
+                    return true;
+                }
+            }
+            return false;
+        }
     }
 
     /**
      * Uses a Flood Fill with DFS beginning at start.
      * Searches for each neighboring point that has the same
-     * value as start (0). It floods any points that equal 0
+     * value as start (usually 0). It floods any points that equal 0
      * with the given "fill" value and pushes them onto a stack.
      * It repeats this process with any values popped from
      * the stack until the stack is empty.
      *
-     * @param start: The starting point for the flood fill
+     * Coordinates are packed into a single int (x*length + y)
+     * and kept on a primitive stack that is reused across regions
+     * and calls, so no objects are created per visited coordinate.
+     *
+     * @param start: The packed starting coordinate for the flood fill
      * @param fill: The integer that the area will be flooded with
      *
      * @return returns the # of coordinates that were flooded,
      * which corresponds to the area of the fertile region
      */
-    private int floodFill(Point start, int fill) {
+    private int floodFill(int start, int fill) {
         // function will flood all neighboring
         // values that also have the value "prev"
-        // (in this case, prev will always be 0)
-        int prev = land[start.x][start.y];
+        // (0 for a new region, or the old label of a
+        // region that is being re-labeled after a cut)
+        int prev = land.get(start);
         // no need to continue searching if
         // the starting value doesn't need to
         // be flooded
@@ -150,18 +1046,30 @@ public class Farm {
             return 0;
         }
         int area = 0; // keep track of # of coordinates visited
-        land[start.x][start.y] = fill;
-        Stack<Point> stack = new Stack<>();
+        int depth = 0; // deepest the stack got, only tracked with metrics
+        land.setLabel(start, fill);
+        stack.clear();
         stack.push(start);
         // DFS
         while(!stack.isEmpty()) {
-            Point curr = stack.pop(); // pop next value from stack
+            if (metrics != null && stack.size() > depth) {
+                depth = stack.size();
+            }
+            int curr = stack.pop(); // pop next value from stack
+            int x = curr / length;
+            int y = curr % length;
             // push all neighbors that have "prev" as their value.
             // immediately change their value to "fill" so they
             // won't be visited again.
-            pushNeighbors(stack, curr, fill, prev);
+            pushNeighbors(x, y, fill, prev);
+            if (filling != null) {
+                filling.add(fill, x, y, RegionStatistics.barrenEdges(land, width, length, x, y));
+            }
             area++;
         }
+        if (metrics != null) {
+            metrics.updateMaxStackDepth(depth);
+        }
         // return area of this fertile land space
         return area;
     }
@@ -178,33 +1086,33 @@ public class Farm {
      * Prior to being pushed on the stack, the neighbor's value
      * is changed to "fill" so it will not be visited again.
      *
-     * @param stack: The stack of coordinates used for DFS
-     * @param curr: The current point. We need to check this
-     *            point's neighbors.
+     * @param x: The x coordinate of the current point. We need
+     *         to check this point's neighbors.
+     * @param y: The y coordinate of the current point
      * @param fill: the number we will flood fill valid neighbors with
      * @param prev: the previous value of this region. A neighbor
      *            must initially have this value to be flood-filled.
      */
-    private void pushNeighbors(Stack<Point> stack, Point curr, int fill, int prev) {
+    private void pushNeighbors(int x, int y, int fill, int prev) {
         // -x direction
-        if (needsFill(curr.x-1, curr.y, prev)) {
-            land[curr.x-1][curr.y] = fill;
-            stack.push(new Point(curr.x-1,curr.y));
+        if (needsFill(x-1, y, prev)) {
+            land.setLabel((x-1)*length + y, fill);
+            stack.push((x-1)*length + y);
         }
         // +x direction
-        if (needsFill(curr.x+1, curr.y, prev)) {
-            land[curr.x+1][curr.y] = fill;
-            stack.push(new Point(curr.x+1,curr.y));
+        if (needsFill(x+1, y, prev)) {
+            land.setLabel((x+1)*length + y, fill);
+            stack.push((x+1)*length + y);
         }
         // +y direction
-        if (needsFill(curr.x, curr.y+1, prev)) {
-            land[curr.x][curr.y+1] = fill;
-            stack.push(new Point(curr.x,curr.y+1));
+        if (needsFill(x, y+1, prev)) {
+            land.setLabel(x*length + y+1, fill);
+            stack.push(x*length + y+1);
         }
         // -y direction
-        if (needsFill(curr.x, curr.y-1, prev)) {
-            land[curr.x][curr.y-1] = fill;
-            stack.push(new Point(curr.x,curr.y-1));
+        if (needsFill(x, y-1, prev)) {
+            land.setLabel(x*length + y-1, fill);
+            stack.push(x*length + y-1);
         }
     }
 
@@ -220,7 +1128,7 @@ public class Farm {
      * @return boolean indicator
      */
     private boolean needsFill(int x, int y, int prev) {
-        return x >= 0 && y >= 0 && x < width && y < length && land[x][y] == prev;
+        return x >= 0 && y >= 0 && x < width && y < length && land.get(x*length + y) == prev;
     }
 
     // used for testing
@@ -237,39 +1145,309 @@ public class Farm {
             // since our cols are relatively long
             System.out.printf("%4d", i);
             for (int j=0;j<length; j++) {
-                System.out.printf("%4d", land[i][j]);
+                System.out.printf("%4d", land.get(i*length + j));
             }
             System.out.println();
         }
     }
 
     /**
-     * get the width of the matrix - used for testing
+     * get the land matrix - used for testing.
+     * The matrix is a copy of the storage; it is built once
+     * and reused until the land changes.
      *
-     * @return width
+     * @return land matrix
      */
-    public int getWidth() {
-        return width;
+    public int[][] getLand() {
+        if (landView == null) {
+            int[][] view = new int[width][length];
+            for (int i=0; i<width; i++) {
+                for (int j=0; j<length; j++) {
+                    view[i][j] = land.get(i*length + j);
+                }
+            }
+            landView = view;
+        }
+        return landView;
     }
 
     /**
-     * get the length of the matrix - used for testing
+     * Saves the farm to a snapshot file: its dimensions, its barren
+     * rectangles and the barren mask, run-length encoded. With labels,
+     * the farm is analyzed if needed and its labels and region areas
+     * are saved too, so the loaded farm is already indexed.
      *
-     * @return length
+     * @param path: the file to write, replaced if it exists
+     * @param labels: whether to save the labels and region areas
      */
-    public int getLength() {
-        return length;
+    public void save(Path path, boolean labels) throws IOException {
+        FarmSnapshot.write(this, path, labels);
     }
 
     /**
-     * get the land matrix - used for testing
+     * Loads a farm saved with save(), with INT storage.
      *
-     * @return land matrix
+     * @param path: the snapshot file
+     * @return the restored farm
      */
-    public int[][] getLand() {
+    public static Farm load(Path path) throws IOException, InvalidBoundaryException {
+        return load(path, LandStorageType.INT);
+    }
+
+    /**
+     * Loads a farm saved with save(). Throws an IOException if the
+     * file is not a snapshot or is damaged.
+     *
+     * @param path: the snapshot file
+     * @param storageType: how the restored farm stores its land matrix
+     * @return the restored farm
+     */
+    public static Farm load(Path path, LandStorageType storageType) throws IOException, InvalidBoundaryException {
+        return FarmSnapshot.read(path, storageType);
+    }
+
+    /**
+     * Returns an independent copy of the farm: the same land, barren
+     * rectangles, labeling settings and region index. Changing either
+     * farm afterwards doesn't affect the other. Metrics are not copied.
+     *
+     * With PAGED storage the copy is cheap: the land is shared
+     * copy-on-write, so a fork that adds a few rectangles copies only the
+     * pages they and the regions they cut touch, and the labels of every
+     * other page are reused as they are. Forking an analyzed farm lets
+     * each fork answer from the shared index and re-label only what its
+     * own rectangles change. The other storage types copy the matrix.
+     *
+     * @return the fork
+     */
+    public Farm fork() {
+        try {
+            return new Farm(this, land.fork());
+        } catch (InvalidBoundaryException e) {
+            // this farm's dimensions were already checked
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * get the region areas by label - used by FarmSnapshot
+     *
+     * @return area of label L at L-1, 0 for unused labels
+     */
+    IntStack getRegionAreas() {
+        return regionAreas;
+    }
+
+    /**
+     * get the id the next barren rectangle will get - used by FarmSnapshot
+     *
+     * @return next id
+     */
+    int getNextBarrenId() {
+        return nextBarrenId;
+    }
+
+    /**
+     * Remembers a barren rectangle under the given id without painting
+     * it - used by FarmSnapshot, which restores the mask itself.
+     */
+    void restoreBarren(int id, BarrenRectangle rectangle) {
+        barren.put(id, rectangle);
+    }
+
+    /**
+     * Sets the id the next barren rectangle will get - used by FarmSnapshot.
+     */
+    void restoreNextBarrenId(int id) {
+        nextBarrenId = id;
+    }
+
+    /**
+     * Rebuilds the region index from restored labels - used by FarmSnapshot.
+     *
+     * @param restoredAreas: area of label L at L-1, 0 for unused labels
+     */
+    void restoreIndex(int[] restoredAreas) {
+        regionAreas.clear();
+        areas.clear();
+        freeLabels.clear();
+        for (int area : restoredAreas) {
+            regionAreas.push(area);
+            if (area != 0) {
+                areas.push(area);
+            } else {
+                freeLabels.push(regionAreas.size());
+            }
+        }
+        areas.sort();
+        seeded = false;
+        labeled = true;
+        indexed = true;
+        landView = null;
+        fertileLand = null;
+    }
+
+    /**
+     * get the number of changes made to the land so far. Every
+     * makeBarren(), removeBarren() and resetLand() increases it, so two
+     * equal counts mean the land and its fertile areas are unchanged.
+     *
+     * @return modification count
+     */
+    public int getModCount() {
+        return modCount;
+    }
+
+    /**
+     * get the storage behind the land matrix - used for testing and by FarmSnapshot
+     *
+     * @return land storage
+     */
+    LandStorage getStorage() {
         return land;
     }
 
+    /**
+     * Selects the algorithm used by getFertileLand() to label
+     * the fertile regions. Defaults to FLOOD_FILL.
+     *
+     * @param labelingMode: the labeling algorithm
+     */
+    public void setLabelingMode(LabelingMode labelingMode) {
+        this.labelingMode = labelingMode;
+    }
+
+    /**
+     * get the labeling algorithm used by getFertileLand()
+     *
+     * @return labeling mode
+     */
+    public LabelingMode getLabelingMode() {
+        return labelingMode;
+    }
+
+    /**
+     * Sets how many threads the PARALLEL labeling mode may use.
+     * By default it runs on the common ForkJoinPool.
+     *
+     * @param parallelism: number of threads, at least 1
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1.");
+        }
+        if (pool != null && pool.getParallelism() != parallelism) {
+            // only ever a pool this farm created itself
+            pool.shutdown();
+            pool = null;
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * get the pool PARALLEL runs on: the common pool unless
+     * setParallelism() was called, otherwise a pool of this farm's
+     * own, created the first time it is needed.
+     *
+     * @return the pool
+     */
+    private ForkJoinPool parallelPool() {
+        if (parallelism == 0) {
+            return ForkJoinPool.commonPool();
+        }
+        if (pool == null) {
+            pool = new ForkJoinPool(parallelism);
+        }
+        return pool;
+    }
+
+    /**
+     * get the number of threads the PARALLEL labeling mode may use
+     *
+     * @return parallelism
+     */
+    public int getParallelism() {
+        return parallelism == 0 ? ForkJoinPool.getCommonPoolParallelism() : parallelism;
+    }
+
+    /**
+     * Selects whether getFertileLand() also collects the statistics of
+     * every region while it labels them. In FLOOD_FILL mode they are
+     * gathered as each coordinate is flooded; the other modes need one
+     * more pass over the labels. Off by default.
+     *
+     * @param collectingStatistics: whether to collect region statistics
+     */
+    public void setCollectingStatistics(boolean collectingStatistics) {
+        this.collectingStatistics = collectingStatistics;
+    }
+
+    /**
+     * get whether getFertileLand() collects region statistics
+     *
+     * @return whether statistics are collected
+     */
+    public boolean isCollectingStatistics() {
+        return collectingStatistics;
+    }
+
+    /**
+     * Returns the statistics of every region, as collected by the last
+     * analysis. If the land has changed since (or the farm has not been
+     * analyzed), the farm is analyzed again first. Throws an
+     * IllegalStateException unless statistics are being collected.
+     *
+     * @return region statistics, by label
+     */
+    public RegionStatistics getRegionStatistics() {
+        if (!collectingStatistics) {
+            throw new IllegalStateException("Region statistics are not being collected.");
+        }
+        if (!indexed || statistics == null) {
+            analyze();
+        }
+        return statistics;
+    }
+
+    /**
+     * Starts keeping metrics for this farm, see FarmMetrics.
+     * Calling it again returns the same metrics.
+     *
+     * @return the farm's metrics
+     */
+    public FarmMetrics enableMetrics() {
+        if (metrics == null) {
+            metrics = new FarmMetrics();
+        }
+        return metrics;
+    }
+
+    /**
+     * Stops keeping metrics. Metrics handed out earlier
+     * keep their values but are no longer updated.
+     */
+    public void disableMetrics() {
+        metrics = null;
+    }
+
+    /**
+     * get the farm's metrics
+     *
+     * @return metrics, or null if they are not enabled
+     */
+    public FarmMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * get the storage type of the land matrix
+     *
+     * @return storage type
+     */
+    public LandStorageType getStorageType() {
+        return storageType;
+    }
+
     /* UNCOMMENT TO TEST FARM FUNCTIONALITY
     public static void main(String[] args) throws InvalidBoundaryException {
         Farm farm = new com.target.barrenland.Farm(400, 600);
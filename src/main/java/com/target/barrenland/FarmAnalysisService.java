@@ -0,0 +1,138 @@
+package com.target.barrenland;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Analyzes many independent farms concurrently.
+ *
+ * Jobs run on a fixed number of threads. Each job borrows a Farm of
+ * its size from a FarmPool, paints its rectangles as one batch, and
+ * returns the farm to the pool, so a steady stream of same-sized farms
+ * reuses the same land matrices, stacks and region indexes instead of
+ * allocating new ones. The pool keeps at most one idle farm per thread
+ * in each size class and four per thread in all, so a stream of many
+ * different sizes doesn't keep a matrix of every size alive.
+ *
+ * At most maxPending jobs may be queued or running at once. submit()
+ * blocks until a job finishes when that limit is reached, which keeps a
+ * fast producer from queueing more work (and rectangles) than the
+ * service can keep up with.
+ *
+ * @author Alexis Johnson
+ * @version 1.0
+ */
+public class FarmAnalysisService implements AutoCloseable {
+    private final ExecutorService executor;
+    private final Semaphore pending;
+    private final FarmPool pool;
+
+    /**
+     * Construct a service with the given number of threads, allowing
+     * 4 jobs per thread to be pending, using INT storage.
+     *
+     * @param threads: number of threads analyzing farms, at least 1
+     */
+    public FarmAnalysisService(int threads) {
+        this(threads, 4 * threads, LandStorageType.INT);
+    }
+
+    /**
+     * Construct a service with the given number of threads.
+     *
+     * @param threads: number of threads analyzing farms, at least 1
+     * @param maxPending: most jobs queued or running at once, at least 1
+     * @param storageType: storage type of the pooled farms
+     */
+    public FarmAnalysisService(int threads, int maxPending, LandStorageType storageType) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("A service needs at least 1 thread.");
+        }
+        if (maxPending < 1) {
+            throw new IllegalArgumentException("A service must allow at least 1 pending job.");
+        }
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory factory = runnable -> {
+            Thread thread = new Thread(runnable, "farm-analysis-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        executor = Executors.newFixedThreadPool(threads, factory);
+        pending = new Semaphore(maxPending);
+        // a thread holds at most one farm at a time, so one size class
+        // needs threads farms, and room is left for a few more classes
+        pool = new FarmPool(storageType, threads, 4 * threads);
+    }
+
+    /**
+     * Queues a job, blocking while maxPending jobs are already queued
+     * or running. The returned future completes with the job's fertile
+     * areas, sorted from least to greatest, or exceptionally with an
+     * InvalidBoundaryException if the job's farm or rectangles are invalid.
+     *
+     * @param job: the farm to analyze
+     * @return the job's result
+     */
+    public CompletableFuture<List<Integer>> submit(FarmJob job) throws InterruptedException {
+        pending.acquire();
+        CompletableFuture<List<Integer>> result = new CompletableFuture<>();
+        try {
+            executor.execute(() -> run(job, result));
+        } catch (RuntimeException e) {
+            pending.release();
+            throw e;
+        }
+        return result;
+    }
+
+    /**
+     * Runs one job on a pooled farm.
+     */
+    private void run(FarmJob job, CompletableFuture<List<Integer>> result) {
+        try {
+            Farm farm = pool.acquire(job.getWidth(), job.getLength());
+            try {
+                farm.makeBarren(job.getRectangles());
+                result.complete(farm.getFertileLand());
+            } finally {
+                pool.release(farm);
+            }
+        } catch (Throwable e) {
+            result.completeExceptionally(e);
+        } finally {
+            pending.release();
+        }
+    }
+
+    /**
+     * get the pool the service's farms come from - used for testing
+     *
+     * @return farm pool
+     */
+    FarmPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Stops accepting jobs and waits for the queued ones to finish. If
+     * the calling thread is interrupted while waiting, the jobs still
+     * running are interrupted too and the thread's interrupt status is
+     * set again.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.target.barrenland;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One farm to be analyzed by a FarmAnalysisService: its dimensions
+ * and its barren rectangles. Jobs are immutable.
+ *
+ * @author Alexis Johnson
+ * @version 1.0
+ */
+public final class FarmJob {
+    private final int width;
+    private final int length;
+    private final List<BarrenRectangle> rectangles;
+
+    /**
+     * Construct a job for a farm of the given size. The rectangles are
+     * copied; they are checked against the farm when the job runs.
+     *
+     * @param width: size of the farm along x
+     * @param length: size of the farm along y
+     * @param rectangles: the barren rectangles
+     */
+    public FarmJob(int width, int length, Collection<BarrenRectangle> rectangles) {
+        this.width = width;
+        this.length = length;
+        this.rectangles = Collections.unmodifiableList(new ArrayList<>(rectangles));
+    }
+
+    /**
+     * get the width of the farm
+     *
+     * @return width
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * get the length of the farm
+     *
+     * @return length
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * get the barren rectangles
+     *
+     * @return unmodifiable list of rectangles
+     */
+    public List<BarrenRectangle> getRectangles() {
+        return rectangles;
+    }
+}
@@ -0,0 +1,262 @@
+package com.target.barrenland;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counters describing the work a Farm has done since its metrics were
+ * enabled (or last reset):
+ *
+ * - nanoseconds spent in each FarmPhase
+ * - coordinates made barren by makeBarren()
+ * - coordinates read by the getFertileLand() scan
+ * - number of fertile regions found by the last analysis
+ * - deepest DFS stack reached by a flood fill
+ * - bytes allocated by the calling thread while painting and analyzing
+ *
+ * A farm only keeps metrics after Farm.enableMetrics(), so a farm without
+ * them pays a null check per operation and per flood filled coordinate.
+ *
+ * The counters are written by the thread using the farm and may be read
+ * from any thread, for example over JMX. Allocated bytes come from the
+ * JVM's per-thread allocation counter, so they are -1 on JVMs that lack
+ * one and leave out the worker threads of the PARALLEL labeling mode.
+ *
+ * @author Alexis Johnson
+ * @version 1.0
+ */
+public final class FarmMetrics implements FarmMetricsMXBean {
+    private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    private volatile long paintNanos;
+    private volatile long scanNanos;
+    private volatile long floodFillNanos;
+    private volatile long sortNanos;
+    private volatile long cellsWritten;
+    private volatile long cellsScanned;
+    private volatile int regions;
+    private volatile int maxStackDepth;
+    private volatile long bytesAllocated;
+    private final List<FarmMetricsListener> listeners = new CopyOnWriteArrayList<>();
+    private ObjectName name; // set while registered with JMX
+
+    FarmMetrics() {
+    }
+
+    /**
+     * Adds a listener that is called after every phase.
+     *
+     * @param listener: the listener to add
+     */
+    public void addListener(FarmMetricsListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener added with addListener().
+     *
+     * @param listener: the listener to remove
+     */
+    public void removeListener(FarmMetricsListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Registers these metrics with the platform MBean server as
+     * com.target.barrenland:type=FarmMetrics,name=NAME.
+     *
+     * @param farmName: name that tells this farm apart from other farms
+     * @return the name the metrics were registered under
+     */
+    public synchronized ObjectName register(String farmName) throws JMException {
+        if (name != null) {
+            throw new IllegalStateException("Metrics are already registered as " + name + ".");
+        }
+        ObjectName objectName = new ObjectName("com.target.barrenland:type=FarmMetrics,name=" + ObjectName.quote(farmName));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        name = objectName;
+        return name;
+    }
+
+    /**
+     * Removes these metrics from the platform MBean server,
+     * if they were registered.
+     */
+    public synchronized void unregister() throws JMException {
+        if (name != null) {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+            name = null;
+        }
+    }
+
+    /**
+     * Sets every counter back to 0.
+     */
+    @Override
+    public synchronized void reset() {
+        paintNanos = 0;
+        scanNanos = 0;
+        floodFillNanos = 0;
+        sortNanos = 0;
+        cellsWritten = 0;
+        cellsScanned = 0;
+        regions = 0;
+        maxStackDepth = 0;
+        bytesAllocated = 0;
+    }
+
+    /**
+     * get the nanoseconds spent in a phase
+     *
+     * @param phase: the phase
+     * @return nanoseconds
+     */
+    public long getNanos(FarmPhase phase) {
+        switch (phase) {
+            case PAINT:
+                return paintNanos;
+            case SCAN:
+                return scanNanos;
+            case FLOOD_FILL:
+                return floodFillNanos;
+            default:
+                return sortNanos;
+        }
+    }
+
+    @Override
+    public long getPaintNanos() {
+        return paintNanos;
+    }
+
+    @Override
+    public long getScanNanos() {
+        return scanNanos;
+    }
+
+    @Override
+    public long getFloodFillNanos() {
+        return floodFillNanos;
+    }
+
+    @Override
+    public long getSortNanos() {
+        return sortNanos;
+    }
+
+    @Override
+    public long getCellsWritten() {
+        return cellsWritten;
+    }
+
+    @Override
+    public long getCellsScanned() {
+        return cellsScanned;
+    }
+
+    @Override
+    public int getRegions() {
+        return regions;
+    }
+
+    @Override
+    public int getMaxStackDepth() {
+        return maxStackDepth;
+    }
+
+    @Override
+    public long getBytesAllocated() {
+        return bytesAllocated;
+    }
+
+    /**
+     * Adds the time of a finished phase and notifies the listeners.
+     *
+     * @param phase: the phase that finished
+     * @param nanos: how long the phase took
+     */
+    synchronized void phaseCompleted(FarmPhase phase, long nanos) {
+        switch (phase) {
+            case PAINT:
+                paintNanos += nanos;
+                break;
+            case SCAN:
+                scanNanos += nanos;
+                break;
+            case FLOOD_FILL:
+                floodFillNanos += nanos;
+                break;
+            default:
+                sortNanos += nanos;
+        }
+        for (FarmMetricsListener listener : listeners) {
+            listener.phaseCompleted(phase, nanos, this);
+        }
+    }
+
+    synchronized void addCellsWritten(long cells) {
+        cellsWritten += cells;
+    }
+
+    synchronized void addCellsScanned(long cells) {
+        cellsScanned += cells;
+    }
+
+    void setRegions(int regions) {
+        this.regions = regions;
+    }
+
+    synchronized void updateMaxStackDepth(int depth) {
+        if (depth > maxStackDepth) {
+            maxStackDepth = depth;
+        }
+    }
+
+    /**
+     * Adds the bytes allocated between two readings of
+     * threadAllocatedBytes(). Once a reading is missing the
+     * counter stays at -1.
+     */
+    synchronized void addBytesAllocated(long before, long after) {
+        if (before < 0 || after < 0) {
+            bytesAllocated = -1;
+        } else if (bytesAllocated >= 0) {
+            bytesAllocated += after - before;
+        }
+    }
+
+    /**
+     * Returns the number of bytes the current thread has allocated so
+     * far, or -1 if the JVM can't tell.
+     *
+     * @return allocated bytes
+     */
+    static long threadAllocatedBytes() {
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    /**
+     * One line per counter, as printed by BarrenLandAnalysis --stats.
+     */
+    @Override
+    public String toString() {
+        return String.format("paint:           %d us%n" +
+                        "scan:            %d us%n" +
+                        "flood fill:      %d us%n" +
+                        "sort:            %d us%n" +
+                        "cells written:   %d%n" +
+                        "cells scanned:   %d%n" +
+                        "regions:         %d%n" +
+                        "max stack depth: %d%n" +
+                        "bytes allocated: %d",
+                paintNanos / 1000, scanNanos / 1000, floodFillNanos / 1000, sortNanos / 1000,
+                cellsWritten, cellsScanned, regions, maxStackDepth, bytesAllocated);
+    }
+}
@@ -0,0 +1,21 @@
+package com.target.barrenland;
+
+/**
+ * Receives a callback each time a Farm with metrics enabled
+ * finishes a phase of its work.
+ *
+ * @author Alexis Johnson
+ * @version 1.0
+ */
+public interface FarmMetricsListener {
+
+    /**
+     * Called on the thread that ran the phase, after the phase's
+     * time and counters have been added to the metrics.
+     *
+     * @param phase: the phase that finished
+     * @param nanos: how long the phase took
+     * @param metrics: the farm's metrics, including this phase
+     */
+    void phaseCompleted(FarmPhase phase, long nanos, FarmMetrics metrics);
+}
@@ -0,0 +1,31 @@
+package com.target.barrenland;
+
+/**
+ * JMX view of FarmMetrics. Register a farm's metrics with
+ * FarmMetrics.register() to read them from JConsole or any JMX client.
+ *
+ * @author Alexis Johnson
+ * @version 1.0
+ */
+public interface FarmMetricsMXBean {
+
+    long getPaintNanos();
+
+    long getScanNanos();
+
+    long getFloodFillNanos();
+
+    long getSortNanos();
+
+    long getCellsWritten();
+
+    long getCellsScanned();
+
+    int getRegions();
+
+    int getMaxStackDepth();
+
+    long getBytesAllocated();
+
+    void reset();
+}
@@ -0,0 +1,30 @@
+package com.target.barrenland;
+
+/**
+ * The phases of a Farm's work that FarmMetrics times.
+ *
+ * @author Alexis Johnson
+ * @version 1.0
+ */
+public enum FarmPhase {
+    /**
+     * makeBarren() and addBarren(): writing barren coordinates, plus
+     * re-labeling the regions a rectangle cuts once the farm is indexed.
+     * removeBarren(): writing the freed coordinates fertile, plus merging
+     * them into the regions around them once the farm is indexed.
+     */
+    PAINT,
+    /**
+     * The row-major scan for unlabeled coordinates in getFertileLand().
+     * With the TWO_PASS and PARALLEL labeling modes, all of the labeling.
+     */
+    SCAN,
+    /**
+     * The flood fills started by the scan in FLOOD_FILL labeling mode.
+     */
+    FLOOD_FILL,
+    /**
+     * Sorting the fertile areas.
+     */
+    SORT
+}
@@ -0,0 +1,217 @@
+package com.target.barrenland;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A pool of idle Farms, bucketed by size class. A Farm's land storage,
+ * DFS stack and region index are sized for its dimensions and are
+ * cleared rather than reallocated by resetLand(), so a pooled farm can
+ * analyze another farm of the same size without allocating them again.
+ *
+ * The size class of a farm is its number of cells rounded up to a power
+ * of two, so there are at most 32 buckets however many different sizes
+ * pass through the pool. A farm is only handed out again for exactly
+ * its own dimensions, which acquire() looks for in the bucket of the
+ * requested size.
+ *
+ * Each bucket keeps at most maxIdlePerClass farms and the whole pool at
+ * most maxIdle. Releasing a farm into a full bucket, or a full pool,
+ * evicts the farm that has been idle the longest, from the bucket or
+ * from the whole pool, and leaves it for the garbage collector. The
+ * pool is thread safe; farms are created and reset outside its lock.
+ *
+ * @author Alexis Johnson
+ * @version 1.0
+ */
+final class FarmPool {
+    private static final int SIZE_CLASSES = 32;
+
+    private final LandStorageType storageType;
+    private final int maxIdlePerClass;
+    private final int maxIdle;
+    private final List<ArrayDeque<Idle>> classes = new ArrayList<>(SIZE_CLASSES); // oldest first
+    private int idleCount;
+    private long releaseCount; // orders the idle farms from least to most recently released
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong reused = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+
+    /**
+     * @param storageType: storage type of the farms the pool creates
+     * @param maxIdlePerClass: most idle farms kept per size class, at least 1
+     * @param maxIdle: most idle farms kept in all, at least maxIdlePerClass
+     */
+    FarmPool(LandStorageType storageType, int maxIdlePerClass, int maxIdle) {
+        if (maxIdlePerClass < 1) {
+            throw new IllegalArgumentException("A pool must keep at least 1 farm per size class.");
+        }
+        if (maxIdle < maxIdlePerClass) {
+            throw new IllegalArgumentException("A pool must keep at least as many farms as it keeps per size class.");
+        }
+        this.storageType = storageType;
+        this.maxIdlePerClass = maxIdlePerClass;
+        this.maxIdle = maxIdle;
+        for (int c=0; c<SIZE_CLASSES; c++) {
+            classes.add(new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * Takes an idle farm of the given size out of the pool,
+     * or creates one if there is none.
+     *
+     * @param width: size of the farm along x
+     * @param length: size of the farm along y
+     * @return an all fertile farm
+     */
+    Farm acquire(int width, int length) throws InvalidBoundaryException {
+        Farm farm = width > 0 && length > 0 ? take(width, length) : null;
+        if (farm != null) {
+            reused.incrementAndGet();
+            return farm;
+        }
+        farm = new Farm(width, length, storageType);
+        created.incrementAndGet();
+        return farm;
+    }
+
+    /**
+     * Removes the most recently released idle farm of the given size.
+     *
+     * @param width: size of the farm along x
+     * @param length: size of the farm along y
+     * @return the farm, or null if there is none
+     */
+    private synchronized Farm take(int width, int length) {
+        Iterator<Idle> idle = classes.get(sizeClass(width, length)).descendingIterator();
+        while (idle.hasNext()) {
+            Farm farm = idle.next().farm;
+            if (farm.getWidth() == width && farm.getLength() == length) {
+                idle.remove();
+                idleCount--;
+                return farm;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Resets a farm and returns it to the pool.
+     *
+     * @param farm: a farm taken from acquire()
+     */
+    void release(Farm farm) {
+        farm.resetLand();
+        synchronized (this) {
+            ArrayDeque<Idle> bucket = classes.get(sizeClass(farm.getWidth(), farm.getLength()));
+            if (bucket.size() == maxIdlePerClass) {
+                bucket.removeFirst();
+                idleCount--;
+                evicted.incrementAndGet();
+            } else if (idleCount == maxIdle) {
+                evictEldest();
+            }
+            bucket.addLast(new Idle(farm, releaseCount++));
+            idleCount++;
+        }
+    }
+
+    /**
+     * Drops the idle farms of the given size, for when the caller knows
+     * it won't need that size again soon.
+     *
+     * @param width: size of the farm along x
+     * @param length: size of the farm along y
+     */
+    synchronized void discard(int width, int length) {
+        Iterator<Idle> idle = classes.get(sizeClass(width, length)).iterator();
+        while (idle.hasNext()) {
+            Farm farm = idle.next().farm;
+            if (farm.getWidth() == width && farm.getLength() == length) {
+                idle.remove();
+                idleCount--;
+            }
+        }
+    }
+
+    /**
+     * Drops every idle farm. The counters are kept.
+     */
+    synchronized void clear() {
+        for (ArrayDeque<Idle> bucket : classes) {
+            bucket.clear();
+        }
+        idleCount = 0;
+    }
+
+    /**
+     * Evicts the farm that has been idle the longest, which is
+     * at the head of one of the buckets.
+     */
+    private void evictEldest() {
+        ArrayDeque<Idle> eldest = null;
+        for (ArrayDeque<Idle> bucket : classes) {
+            if (!bucket.isEmpty() && (eldest == null || bucket.peekFirst().released < eldest.peekFirst().released)) {
+                eldest = bucket;
+            }
+        }
+        eldest.removeFirst();
+        idleCount--;
+        evicted.incrementAndGet();
+    }
+
+    /**
+     * @return the number of farms the pool had to create
+     */
+    long getCreated() {
+        return created.get();
+    }
+
+    /**
+     * @return the number of times an idle farm was handed out again
+     */
+    long getReused() {
+        return reused.get();
+    }
+
+    /**
+     * @return the number of idle farms dropped to make room for others
+     */
+    long getEvicted() {
+        return evicted.get();
+    }
+
+    /**
+     * @return the number of idle farms in the pool
+     */
+    synchronized int getIdle() {
+        return idleCount;
+    }
+
+    /**
+     * @param width: size of the farm along x, at least 1
+     * @param length: size of the farm along y, at least 1
+     * @return the farm's number of cells rounded up to a power of two, as an exponent
+     */
+    static int sizeClass(int width, int length) {
+        long cells = (long) width * length;
+        return 64 - Long.numberOfLeadingZeros(cells - 1);
+    }
+
+    /**
+     * An idle farm and when it was released.
+     */
+    private static final class Idle {
+        private final Farm farm;
+        private final long released;
+
+        Idle(Farm farm, long released) {
+            this.farm = farm;
+            this.released = released;
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.target.barrenland;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+/**
+ * Reads and writes the binary snapshot format behind Farm.save() and
+ * Farm.load().
+ *
+ * A snapshot holds the farm's dimensions, its barren rectangles with
+ * their ids, and the barren mask. Optionally it also holds the labels
+ * and region areas of an analyzed farm, so a loaded farm can answer
+ * getFertileLand() without labeling it again. All numbers after the
+ * fixed header are unsigned LEB128 varints:
+ *
+ * header      magic "BLFS", version, flags (bit 0: labels), width, length (ints)
+ * rectangles  next id, count, then id, minX, minY, maxX, maxY of each
+ * regions     (labels only) count, then the area of each label, 0 if unused
+ * rows        for each row: the number of runs, then the run lengths,
+ *             alternating fertile and barren and starting with fertile
+ *             (so the first run may be empty); with labels, each
+ *             non-empty fertile run is followed by its label
+ *
+ * Neighboring fertile coordinates in a row always share a label, so a
+ * run needs only one. The file is written through a direct buffer, so
+ * FileChannel hands it to the OS without copying it on the heap, and is
+ * read back through a memory mapping.
+ *
+ * @author Alexis Johnson
+ * @version 1.0
+ */
+final class FarmSnapshot {
+    private static final int MAGIC = 0x424C4653; // "BLFS"
+    private static final int VERSION = 1;
+    private static final int LABELS = 1;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private FarmSnapshot() {
+    }
+
+    /**
+     * Writes a snapshot of the farm to the given file, replacing it.
+     *
+     * @param farm: the farm to save
+     * @param path: where to write the snapshot
+     * @param labels: whether to include labels and region areas; the
+     *              farm is analyzed first if needed
+     */
+    static void write(Farm farm, Path path, boolean labels) throws IOException {
+        if (labels) {
+            farm.getFertileLand();
+        }
+        int width = farm.getWidth();
+        int length = farm.getLength();
+        LandStorage land = farm.getStorage();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            Writer out = new Writer(channel);
+            out.buffer.putInt(MAGIC).putInt(VERSION).putInt(labels ? LABELS : 0).putInt(width).putInt(length);
+
+            Map<Integer, BarrenRectangle> rectangles = farm.getBarrenRectangles();
+            out.putVarint(farm.getNextBarrenId());
+            out.putVarint(rectangles.size());
+            for (Map.Entry<Integer, BarrenRectangle> entry : rectangles.entrySet()) {
+                BarrenRectangle rectangle = entry.getValue();
+                out.putVarint(entry.getKey());
+                out.putVarint(rectangle.getMinX());
+                out.putVarint(rectangle.getMinY());
+                out.putVarint(rectangle.getMaxX());
+                out.putVarint(rectangle.getMaxY());
+            }
+
+            if (labels) {
+                IntStack regionAreas = farm.getRegionAreas();
+                out.putVarint(regionAreas.size());
+                for (int r=0; r<regionAreas.size(); r++) {
+                    out.putVarint(regionAreas.get(r));
+                }
+            }
+
+            // run ends of the current row; fertile runs at even positions
+            IntStack runs = new IntStack();
+            for (int x=0; x<width; x++) {
+                int row = x*length;
+                runs.clear();
+                boolean fertile = true;
+                for (int y=0; y<length; y++) {
+                    if ((land.get(row + y) != LandStorage.BARREN) != fertile) {
+                        runs.push(y);
+                        fertile = !fertile;
+                    }
+                }
+                runs.push(length);
+                out.putVarint(runs.size());
+                int start = 0;
+                for (int r=0; r<runs.size(); r++) {
+                    out.putVarint(runs.get(r) - start);
+                    if (labels && r % 2 == 0 && runs.get(r) > start) {
+                        out.putVarint(land.get(row + start));
+                    }
+                    start = runs.get(r);
+                }
+            }
+            out.flush();
+        }
+    }
+
+    /**
+     * Reads a snapshot written by write() into a new farm.
+     *
+     * @param path: the snapshot file
+     * @param storageType: how the new farm stores its land matrix
+     * @return the restored farm
+     */
+    static Farm read(Path path, LandStorageType storageType) throws IOException, InvalidBoundaryException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot is too large to map.");
+            }
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            try {
+                return read(in, storageType);
+            } catch (BufferUnderflowException e) {
+                throw new IOException("Snapshot is truncated.");
+            }
+        }
+    }
+
+    private static Farm read(ByteBuffer in, LandStorageType storageType) throws IOException, InvalidBoundaryException {
+        if (in.remaining() < 20 || in.getInt() != MAGIC) {
+            throw new IOException("Not a farm snapshot.");
+        }
+        int version = in.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version " + version + ".");
+        }
+        boolean labels = (in.getInt() & LABELS) != 0;
+        int width = in.getInt();
+        int length = in.getInt();
+        // every count is checked against the bytes left before anything is
+        // allocated, so a corrupt file can't ask for a huge array; a row
+        // takes at least 2 bytes, its number of runs and one run
+        if (width > in.remaining() / 2) {
+            throw new IOException("Corrupt snapshot: " + width + " rows don't fit in the file.");
+        }
+
+        int nextId = getVarint(in);
+        int count = getVarint(in);
+        if (count > in.remaining() / 5) {
+            throw new IOException("Corrupt snapshot: " + count + " rectangles don't fit in the file.");
+        }
+        int[] ids = new int[count];
+        BarrenRectangle[] rectangles = new BarrenRectangle[count];
+        for (int r=0; r<count; r++) {
+            ids[r] = getVarint(in);
+            rectangles[r] = new BarrenRectangle(getVarint(in), getVarint(in), getVarint(in), getVarint(in));
+            if (ids[r] >= nextId || rectangles[r].getMaxX() >= width || rectangles[r].getMaxY() >= length) {
+                throw new IOException("Corrupt snapshot: bad rectangle " + ids[r] + ".");
+            }
+        }
+
+        int[] regionAreas = null;
+        if (labels) {
+            int regions = getVarint(in);
+            if (regions > in.remaining()) {
+                throw new IOException("Corrupt snapshot: " + regions + " regions don't fit in the file.");
+            }
+            regionAreas = new int[regions];
+            for (int r=0; r<regions; r++) {
+                regionAreas[r] = getVarint(in);
+            }
+        }
+
+        // the file size can't bound length, since one run can cover a whole
+        // row, so the rows are checked before the land matrix is allocated
+        int rows = in.position();
+        checkRows(in, width, length, regionAreas);
+        in.position(rows);
+
+        Farm farm = new Farm(width, length, storageType);
+        for (int r=0; r<count; r++) {
+            farm.restoreBarren(ids[r], rectangles[r]);
+        }
+        farm.restoreNextBarrenId(nextId);
+        LandStorage land = farm.getStorage();
+        for (int x=0; x<width; x++) {
+            int row = x*length;
+            int runs = getVarint(in);
+            int y = 0;
+            for (int r=0; r<runs; r++) {
+                int run = getVarint(in);
+                if (r % 2 == 1) {
+                    land.setBarren(row + y, row + y + run);
+                } else if (labels && run > 0) {
+                    land.setLabels(row + y, row + y + run, getVarint(in));
+                }
+                y += run;
+            }
+        }
+        if (labels) {
+            farm.restoreIndex(regionAreas);
+        }
+        return farm;
+    }
+
+    /**
+     * Reads the rows without writing them anywhere, and checks that
+     * every row's runs add up to exactly length and, with labels, that
+     * the coordinates carrying each label add up to the region's area.
+     *
+     * @param in: positioned at the first row
+     * @param width: number of rows
+     * @param length: size of each row
+     * @param regionAreas: the area of each label, null without labels
+     */
+    private static void checkRows(ByteBuffer in, int width, int length, int[] regionAreas) throws IOException {
+        long[] labeled = regionAreas == null ? null : new long[regionAreas.length];
+        for (int x=0; x<width; x++) {
+            int runs = getVarint(in);
+            int y = 0;
+            for (int r=0; r<runs; r++) {
+                int run = getVarint(in);
+                if (run > length - y) {
+                    throw new IOException("Corrupt snapshot: row " + x + " is too long.");
+                }
+                if (r % 2 == 0 && labeled != null && run > 0) {
+                    int label = getVarint(in);
+                    if (label == 0 || label > regionAreas.length || regionAreas[label-1] == 0) {
+                        throw new IOException("Corrupt snapshot: row " + x + " has unknown label " + label + ".");
+                    }
+                    labeled[label-1] += run;
+                }
+                y += run;
+            }
+            if (y != length) {
+                throw new IOException("Corrupt snapshot: row " + x + " is too short.");
+            }
+        }
+        if (labeled != null) {
+            for (int r=0; r<labeled.length; r++) {
+                if (labeled[r] != regionAreas[r]) {
+                    throw new IOException("Corrupt snapshot: region " + (r + 1) + " has area " + regionAreas[r]
+                            + " but " + labeled[r] + " coordinates.");
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads a varint. Every number in a snapshot is a non-negative int,
+     * so anything larger than Integer.MAX_VALUE is corrupt.
+     *
+     * @return the number
+     */
+    private static int getVarint(ByteBuffer in) throws IOException {
+        int value = 0;
+        for (int shift=0; shift<28; shift+=7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        // the fifth byte holds the top 3 bits and must be the last
+        byte b = in.get();
+        if ((b & 0xF8) != 0) {
+            throw new IOException("Corrupt snapshot: bad number.");
+        }
+        return value | b << 28;
+    }
+
+    /**
+     * Buffers varints in a direct buffer and writes it to the channel when full.
+     */
+    private static final class Writer {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        Writer(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void putVarint(int value) throws IOException {
+            if (buffer.remaining() < 5) {
+                flush();
+            }
+            while ((value & ~0x7F) != 0) {
+                buffer.put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            buffer.put((byte) value);
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.target.barrenland;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+
+/**
+ * The fertile areas of a farm, sorted from least to greatest, as
+ * primitive longs. Unlike the List<Integer> of getFertileLand(), nothing
+ * is boxed and an area may be larger than an int.
+ *
+ * Areas are sorted with an LSD radix sort, one byte per pass. Passes
+ * above the highest set bit of any area are skipped, and so is a pass
+ * in which every area has the same byte, so sorting a million areas
+ * below 2^24 takes at most three linear passes.
+ *
+ * writeTo() formats the areas straight into bytes, so results with
+ * millions of regions are written at I/O speed.
+ *
+ * @author Alexis Johnson
+ * @version 1.0
+ */
+public final class FertileAreas {
+    private static final int RADIX_THRESHOLD = 64; // below this, a comparison sort is faster
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final long[] areas;
+
+    /**
+     * @param areas: sorted areas, kept without copying
+     */
+    private FertileAreas(long[] areas) {
+        this.areas = areas;
+    }
+
+    /**
+     * Sorts the given areas in place and wraps them.
+     *
+     * @param areas: non-negative areas in any order
+     * @return the sorted areas
+     */
+    static FertileAreas sort(long[] areas) {
+        radixSort(areas, areas.length);
+        return new FertileAreas(areas);
+    }
+
+    /**
+     * Wraps areas that are already sorted.
+     *
+     * @param areas: non-negative areas, sorted from least to greatest
+     * @return the areas
+     */
+    static FertileAreas ofSorted(long[] areas) {
+        return new FertileAreas(areas);
+    }
+
+    /**
+     * Sorts the first n values of a from least to greatest.
+     *
+     * @param a: non-negative values
+     * @param n: number of values to sort
+     */
+    static void radixSort(long[] a, int n) {
+        if (n < RADIX_THRESHOLD) {
+            Arrays.sort(a, 0, n);
+            return;
+        }
+        long bits = 0;
+        for (int i=0; i<n; i++) {
+            bits |= a[i];
+        }
+        long[] from = a;
+        long[] to = new long[n];
+        int[] count = new int[257];
+        for (int shift=0; shift<64 && (bits >>> shift) != 0; shift+=8) {
+            Arrays.fill(count, 0);
+            for (int i=0; i<n; i++) {
+                count[(int) (from[i] >>> shift & 0xFF) + 1]++;
+            }
+            // every value has the same byte here, the pass wouldn't move anything
+            if (count[(int) (from[0] >>> shift & 0xFF) + 1] == n) {
+                continue;
+            }
+            for (int d=0; d<256; d++) {
+                count[d + 1] += count[d];
+            }
+            for (int i=0; i<n; i++) {
+                to[count[(int) (from[i] >>> shift & 0xFF)]++] = from[i];
+            }
+            long[] swap = from;
+            from = to;
+            to = swap;
+        }
+        if (from != a) {
+            System.arraycopy(from, 0, a, 0, n);
+        }
+    }
+
+    /**
+     * @return the number of fertile regions
+     */
+    public int size() {
+        return areas.length;
+    }
+
+    /**
+     * @param index: position in sorted order
+     * @return the area at index
+     */
+    public long get(int index) {
+        return areas[index];
+    }
+
+    /**
+     * @return a copy of the sorted areas
+     */
+    public long[] toArray() {
+        return areas.clone();
+    }
+
+    /**
+     * @return an iterator over the areas in sorted order, without boxing
+     */
+    public PrimitiveIterator.OfLong iterator() {
+        return new PrimitiveIterator.OfLong() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < areas.length;
+            }
+
+            @Override
+            public long nextLong() {
+                if (next == areas.length) {
+                    throw new NoSuchElementException();
+                }
+                return areas[next++];
+            }
+        };
+    }
+
+    /**
+     * Passes every area to action, in sorted order.
+     *
+     * @param action: receives the areas
+     */
+    public void forEach(LongConsumer action) {
+        for (long area : areas) {
+            action.accept(area);
+        }
+    }
+
+    /**
+     * @return the areas in sorted order
+     */
+    public LongStream stream() {
+        return Arrays.stream(areas);
+    }
+
+    /**
+     * Writes the areas in ASCII, each followed by a space, and then a
+     * newline - the same output BarrenLandAnalysis has always printed.
+     * The digits are formatted into a buffer of our own, so out needs no
+     * buffering and is written in large chunks. out is not flushed.
+     *
+     * @param out: where the areas are written
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int pos = 0;
+        for (long area : areas) {
+            // a long has at most 19 digits, plus the space, and
+            // the newline after the last area must still fit
+            if (pos > BUFFER_SIZE - 21) {
+                out.write(buffer, 0, pos);
+                pos = 0;
+            }
+            pos = writeDigits(area, buffer, pos);
+            buffer[pos++] = ' ';
+        }
+        buffer[pos++] = '\n';
+        out.write(buffer, 0, pos);
+    }
+
+    /**
+     * Formats a non-negative value as decimal digits.
+     *
+     * @param value: value to format
+     * @param buffer: receives the digits
+     * @param pos: index of the first digit
+     * @return index after the last digit
+     */
+    private static int writeDigits(long value, byte[] buffer, int pos) {
+        int digits = 1;
+        for (long v=value/10; v>0; v/=10) {
+            digits++;
+        }
+        int end = pos + digits;
+        for (int i=end-1; i>=pos; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        return end;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof FertileAreas && Arrays.equals(areas, ((FertileAreas) other).areas);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(areas);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(areas);
+    }
+}
@@ -0,0 +1,239 @@
+package com.target.barrenland;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Remembers the fertile areas of recently analyzed farms.
+ *
+ * A farm is identified by its dimensions and a canonical form of its
+ * barren rectangles: they are sorted, and duplicates and rectangles
+ * that lie inside another rectangle are dropped, since neither changes
+ * the land. The same farm therefore hits the cache whatever order its
+ * rectangles come in and however many redundant rectangles it carries.
+ * Finding contained rectangles compares each rectangle with the ones
+ * kept before it, so canonicalizing is quadratic in the number of
+ * rectangles in the worst case.
+ *
+ * The cache holds at most maxEntries farms and evicts the least recently
+ * used one. Cached results are unmodifiable lists that are handed out
+ * as they are, so a hit does not copy the areas. Misses are analyzed
+ * with pooled Farms outside the cache's lock. The pool is bounded
+ * together with the cache: it keeps at most one idle farm per size
+ * class and no more than maxEntries in all, and the idle farm of a size
+ * is dropped once no cached farm has that size. The cache is thread safe.
+ *
+ * @author Alexis Johnson
+ * @version 1.0
+ */
+public class FertileLandCache {
+    // sorts by first row, then puts larger rectangles first
+    private static final Comparator<BarrenRectangle> CANONICAL_ORDER = Comparator
+            .comparingInt(BarrenRectangle::getMinX)
+            .thenComparing(Comparator.comparingInt(BarrenRectangle::getMaxX).reversed())
+            .thenComparingInt(BarrenRectangle::getMinY)
+            .thenComparing(Comparator.comparingInt(BarrenRectangle::getMaxY).reversed());
+
+    private final int maxEntries;
+    private final Map<Key, List<Integer>> entries;
+    private final Map<Long, Integer> sizes = new HashMap<>(); // number of cached farms of each size
+    private final FarmPool pool;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Construct an empty cache.
+     *
+     * @param maxEntries: most farms remembered at once, at least 1
+     */
+    public FertileLandCache(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("A cache must hold at least 1 entry.");
+        }
+        this.maxEntries = maxEntries;
+        pool = new FarmPool(LandStorageType.INT, 1, maxEntries);
+        // access order, so the eldest entry is the least recently used
+        entries = new LinkedHashMap<Key, List<Integer>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, List<Integer>> eldest) {
+                if (size() > FertileLandCache.this.maxEntries) {
+                    evictions++;
+                    forget(eldest.getKey());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Same result as making every rectangle barren on a new
+     * Farm(width, length) and calling getFertileLand(), served
+     * from the cache when the same farm was analyzed recently.
+     *
+     * @param width: size of the farm along x
+     * @param length: size of the farm along y
+     * @param rectangles: the barren rectangles
+     * @return unmodifiable, sorted list of fertile areas
+     */
+    public List<Integer> getFertileLand(int width, int length, Collection<BarrenRectangle> rectangles)
+            throws InvalidBoundaryException {
+        Key key = new Key(width, length, canonicalize(rectangles));
+        synchronized (this) {
+            List<Integer> areas = entries.get(key);
+            if (areas != null) {
+                hits++;
+                return areas;
+            }
+            misses++;
+        }
+        Farm farm = pool.acquire(width, length);
+        List<Integer> areas;
+        try {
+            farm.makeBarren(key.rectangles);
+            areas = Collections.unmodifiableList(farm.getFertileLand());
+        } finally {
+            pool.release(farm);
+        }
+        synchronized (this) {
+            if (!entries.containsKey(key)) {
+                sizes.merge(size(width, length), 1, Integer::sum);
+            }
+            entries.put(key, areas);
+        }
+        return areas;
+    }
+
+    /**
+     * Counts out an evicted farm, and drops the pool's idle
+     * farm of its size if it was the last one of that size.
+     *
+     * @param key: the evicted farm
+     */
+    private void forget(Key key) {
+        long size = size(key.width, key.length);
+        if (sizes.merge(size, -1, Integer::sum) == 0) {
+            sizes.remove(size);
+            pool.discard(key.width, key.length);
+        }
+    }
+
+    private static long size(int width, int length) {
+        return ((long) width << 32) | length;
+    }
+
+    /**
+     * Sorts the rectangles and drops the ones that do not add any
+     * barren land: duplicates and rectangles inside another rectangle.
+     *
+     * @param rectangles: the barren rectangles
+     * @return canonical rectangles
+     */
+    static List<BarrenRectangle> canonicalize(Collection<BarrenRectangle> rectangles) {
+        BarrenRectangle[] sorted = rectangles.toArray(new BarrenRectangle[0]);
+        Arrays.sort(sorted, CANONICAL_ORDER);
+        // a rectangle can only be contained in one that sorts before it
+        List<BarrenRectangle> kept = new ArrayList<>(sorted.length);
+        for (BarrenRectangle rectangle : sorted) {
+            boolean contained = false;
+            for (int k=kept.size()-1; k>=0 && !contained; k--) {
+                contained = kept.get(k).contains(rectangle);
+            }
+            if (!contained) {
+                kept.add(rectangle);
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * Forgets every cached farm and the pooled farms that analyzed
+     * them. The counters are kept.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        sizes.clear();
+        pool.clear();
+    }
+
+    /**
+     * @return the number of farms currently cached
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return the number of lookups answered from the cache
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return the number of lookups that had to analyze the farm
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return the number of farms dropped to make room for newer ones
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * get the pool the cache's farms come from - used for testing
+     *
+     * @return farm pool
+     */
+    FarmPool getPool() {
+        return pool;
+    }
+
+    /**
+     * A farm's dimensions and canonical rectangles. The hash is
+     * computed once, since a key is hashed on every lookup.
+     */
+    private static final class Key {
+        private final int width;
+        private final int length;
+        private final List<BarrenRectangle> rectangles;
+        private final int hash;
+
+        Key(int width, int length, List<BarrenRectangle> rectangles) {
+            this.width = width;
+            this.length = length;
+            this.rectangles = rectangles;
+            this.hash = 31 * (31 * width + length) + rectangles.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return hash == other.hash && width == other.width && length == other.length
+                    && rectangles.equals(other.rectangles);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
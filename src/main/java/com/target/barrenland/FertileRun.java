@@ -0,0 +1,69 @@
+package com.target.barrenland;
+
+/**
+ * An immutable run of fertile coordinates in one row of the farm:
+ * (x, minY) to (x, maxY), inclusive.
+ *
+ * @author Alexis Johnson
+ * @version 1.0
+ */
+public final class FertileRun {
+    private final int x;
+    private final int minY;
+    private final int maxY;
+
+    /**
+     * @param x: the row
+     * @param minY: first coordinate of the run, inclusive
+     * @param maxY: last coordinate of the run, inclusive
+     */
+    public FertileRun(int x, int minY, int maxY) {
+        this.x = x;
+        this.minY = minY;
+        this.maxY = maxY;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getMinY() {
+        return minY;
+    }
+
+    public int getMaxY() {
+        return maxY;
+    }
+
+    /**
+     * @return the number of coordinates in the run
+     */
+    public int length() {
+        return maxY - minY + 1;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof FertileRun)) {
+            return false;
+        }
+        FertileRun other = (FertileRun) o;
+        return x == other.x && minY == other.minY && maxY == other.maxY;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = x;
+        hash = 31*hash + minY;
+        hash = 31*hash + maxY;
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return x + " " + minY + " " + maxY;
+    }
+}
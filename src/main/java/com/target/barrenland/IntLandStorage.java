@@ -0,0 +1,86 @@
+package com.target.barrenland;
+
+import java.util.Arrays;
+
+/**
+ * LandStorage backed by a single flat int[] in row-major order.
+ * A cell holds -1 if barren, 0 if not checked, or its label.
+ *
+ * @author Alexis Johnson
+ * @version 1.0
+ */
+final class IntLandStorage implements LandStorage {
+    private final int[] cells;
+
+    IntLandStorage(int cells) {
+        this.cells = new int[cells];
+    }
+
+    private IntLandStorage(int[] cells) {
+        this.cells = cells;
+    }
+
+    @Override
+    public LandStorage fork() {
+        return new IntLandStorage(cells.clone());
+    }
+
+    @Override
+    public int get(int index) {
+        return cells[index];
+    }
+
+    @Override
+    public void barrenWords(int from, int count, long[] words) {
+        Arrays.fill(words, 0, (count + 63) >>> 6, 0L);
+        for (int i=0; i<count; i++) {
+            if (cells[from + i] == BARREN) {
+                words[i >>> 6] |= 1L << i;
+            }
+        }
+    }
+
+    @Override
+    public void setLabel(int index, int label) {
+        cells[index] = label;
+    }
+
+    @Override
+    public void setLabels(int from, int to, int label) {
+        Arrays.fill(cells, from, to, label);
+    }
+
+    @Override
+    public void reserveLabels() {
+        // labels share the cells
+    }
+
+    @Override
+    public void setBarren(int from, int to) {
+        Arrays.fill(cells, from, to, BARREN);
+    }
+
+    @Override
+    public void setFertile(int from, int to) {
+        Arrays.fill(cells, from, to, 0);
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(cells, 0);
+    }
+
+    @Override
+    public void clearLabels() {
+        for (int i=0; i<cells.length; i++) {
+            if (cells[i] > 0) {
+                cells[i] = 0;
+            }
+        }
+    }
+
+    @Override
+    public long maskBytes() {
+        return 4L * cells.length;
+    }
+}
@@ -0,0 +1,118 @@
+package com.target.barrenland;
+
+import java.util.Arrays;
+
+/**
+ * A growable stack of primitive ints. Unlike java.util.Stack it does
+ * not box its values or synchronize, and clear() keeps the backing
+ * array so the stack can be reused without allocating.
+ *
+ * Values can also be read by position, which lets the same class
+ * serve as a primitive list (for example, of fertile areas).
+ *
+ * @author Alexis Johnson
+ * @version 1.0
+ */
+final class IntStack {
+    private int[] values;
+    private int size;
+
+    IntStack() {
+        this(64);
+    }
+
+    IntStack(int capacity) {
+        values = new int[Math.max(capacity, 1)];
+    }
+
+    void push(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, values.length * 2);
+        }
+        values[size++] = value;
+    }
+
+    int pop() {
+        return values[--size];
+    }
+
+    int get(int index) {
+        return values[index];
+    }
+
+    void set(int index, int value) {
+        values[index] = value;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Replaces the values on the stack with a copy of other's.
+     *
+     * @param other: stack to copy
+     */
+    void copyFrom(IntStack other) {
+        if (values.length < other.size) {
+            values = new int[other.size];
+        }
+        System.arraycopy(other.values, 0, values, 0, other.size);
+        size = other.size;
+    }
+
+    /**
+     * Empties the stack but keeps its capacity.
+     */
+    void clear() {
+        size = 0;
+    }
+
+    /**
+     * Sorts the values currently on the stack in ascending order.
+     */
+    void sort() {
+        Arrays.sort(values, 0, size);
+    }
+
+    /**
+     * Inserts a value into a stack whose values are sorted,
+     * keeping them sorted.
+     *
+     * @param value: value to insert
+     */
+    void insertSorted(int value) {
+        int i = Arrays.binarySearch(values, 0, size, value);
+        if (i < 0) {
+            i = -i - 1;
+        }
+        if (size == values.length) {
+            values = Arrays.copyOf(values, values.length * 2);
+        }
+        System.arraycopy(values, i, values, i + 1, size - i);
+        values[i] = value;
+        size++;
+    }
+
+    /**
+     * Removes one occurrence of a value from a stack whose
+     * values are sorted, keeping them sorted.
+     *
+     * @param value: value to remove
+     */
+    void removeSorted(int value) {
+        int i = Arrays.binarySearch(values, 0, size, value);
+        if (i >= 0) {
+            System.arraycopy(values, i + 1, values, i, size - i - 1);
+            size--;
+        }
+    }
+
+    int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
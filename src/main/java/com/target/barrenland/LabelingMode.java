@@ -0,0 +1,35 @@
+package com.target.barrenland;
+
+/**
+ * The algorithms Farm can use to label its fertile regions. All of
+ * them produce the same labels and the same sorted areas.
+ *
+ * FLOOD_FILL - the original DFS flood fill, one region at a time.
+ * TWO_PASS   - scanline labeling. The first pass streams each row in
+ *              order, giving every cell a provisional label taken from
+ *              its neighbors above and to the left and recording which
+ *              provisional labels touch in a union-find table. The second
+ *              pass replaces every provisional label with its region's
+ *              label. Memory is accessed in order and nothing is deeper
+ *              than the union-find table.
+ * PARALLEL   - the matrix is split into tiles that are flood filled
+ *              concurrently on a ForkJoinPool. Labels that meet on tile
+ *              borders are merged with a lock-free union-find and the
+ *              areas are totalled at the end. See Farm.setParallelism().
+ * WORD_RUNS  - two passes like TWO_PASS, but over runs instead of cells.
+ *              Rows are read 64 cells per long from the barren mask, runs
+ *              are found with Long.numberOfTrailingZeros, and only runs
+ *              whose bits meet the previous row's (a word-wide AND) are
+ *              compared with it. Each run is labeled with one fill.
+ *              Fastest with LandStorageType.BITSET, which hands its mask
+ *              over without looking at single cells.
+ *
+ * @author Alexis Johnson
+ * @version 1.0
+ */
+public enum LabelingMode {
+    FLOOD_FILL,
+    TWO_PASS,
+    PARALLEL,
+    WORD_RUNS
+}
@@ -0,0 +1,101 @@
+package com.target.barrenland;
+
+/**
+ * Storage for a farm's land matrix, flattened in row-major order:
+ * the coordinate (x, y) lives at index x*length + y.
+ *
+ * Every cell is either barren or fertile. A fertile cell also carries
+ * the flood fill label of its region, or 0 if it has not been visited
+ * yet. get() reports both at once, using the same values Farm has always
+ * used: -1 for barren, 0 for not checked and >0 for a label.
+ *
+ * Implementations differ in how many bytes a cell costs, see
+ * LandStorageType.
+ *
+ * @author Alexis Johnson
+ * @version 1.0
+ */
+interface LandStorage {
+    int BARREN = -1;
+
+    /**
+     * @param index: flat index of the cell
+     * @return -1 if barren, 0 if not visited, otherwise the cell's label
+     */
+    int get(int index);
+
+    /**
+     * Copies the barren mask of the cells [from, from+count) into words:
+     * bit i%64 of words[i/64] is set if cell from+i is barren. Bits past
+     * count in the last word are unspecified.
+     *
+     * @param from: first flat index
+     * @param count: number of cells
+     * @param words: receives the mask, at least (count+63)/64 long
+     */
+    void barrenWords(int from, int count, long[] words);
+
+    /**
+     * Labels a fertile cell.
+     *
+     * @param index: flat index of the cell
+     * @param label: label to store, or 0 to mark the cell unvisited
+     */
+    void setLabel(int index, int label);
+
+    /**
+     * Labels the fertile cells in [from, to), all with the same label.
+     *
+     * @param from: first flat index, inclusive
+     * @param to: last flat index, exclusive
+     * @param label: label to store
+     */
+    void setLabels(int from, int to, int label);
+
+    /**
+     * Makes sure labels can be written without allocating. Must be
+     * called before labels are written from several threads.
+     */
+    void reserveLabels();
+
+    /**
+     * Makes the cells in [from, to) barren.
+     *
+     * @param from: first flat index, inclusive
+     * @param to: last flat index, exclusive
+     */
+    void setBarren(int from, int to);
+
+    /**
+     * Makes the cells in [from, to) fertile and unvisited.
+     *
+     * @param from: first flat index, inclusive
+     * @param to: last flat index, exclusive
+     */
+    void setFertile(int from, int to);
+
+    /**
+     * Makes every cell fertile and unvisited.
+     */
+    void clear();
+
+    /**
+     * Marks every fertile cell unvisited, keeping the barren cells.
+     */
+    void clearLabels();
+
+    /**
+     * Returns a storage with the same cells and labels that can be
+     * changed independently of this one. PagedLandStorage shares its
+     * pages until either side writes to them; the others copy their
+     * arrays.
+     *
+     * @return the copy
+     */
+    LandStorage fork();
+
+    /**
+     * @return the number of bytes used to remember which cells are barren
+     */
+    long maskBytes();
+}
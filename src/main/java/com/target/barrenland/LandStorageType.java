@@ -0,0 +1,45 @@
+package com.target.barrenland;
+
+/**
+ * The ways a Farm can store its land matrix. All of them give exactly
+ * the same results; they trade memory against speed.
+ *
+ * INT    - one flat int[] holding -1, 0 or the label of each cell, like
+ *          the original int[][] but without a header and pointer per row.
+ * BITSET - barren cells are bits in a long[] (32x smaller than an int per
+ *          cell). Labels live in a separate int[] that is only allocated
+ *          once the land is analyzed.
+ * BYTE   - barren cells are bytes in a byte[] (4x smaller than an int per
+ *          cell, cheaper to read than a bit). Labels are kept like BITSET.
+ * PAGED  - cells are kept like INT, but in pages of 4096 that a farm shares
+ *          copy-on-write with its forks, see Farm.fork(). Pages nobody has
+ *          written to are shared with every other farm.
+ *
+ * @author Alexis Johnson
+ * @version 1.0
+ */
+public enum LandStorageType {
+    INT,
+    BITSET,
+    BYTE,
+    PAGED;
+
+    /**
+     * Creates an empty (all fertile) storage of the given number of cells.
+     *
+     * @param cells: width * length of the farm
+     * @return new storage
+     */
+    LandStorage create(int cells) {
+        switch (this) {
+            case BITSET:
+                return new BitsetLandStorage(cells);
+            case BYTE:
+                return new ByteLandStorage(cells);
+            case PAGED:
+                return new PagedLandStorage(cells);
+            default:
+                return new IntLandStorage(cells);
+        }
+    }
+}
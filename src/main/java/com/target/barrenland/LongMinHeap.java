@@ -0,0 +1,97 @@
+package com.target.barrenland;
+
+import java.util.Arrays;
+
+/**
+ * A min-heap of primitive longs that keeps only the largest values
+ * offered to it, up to a limit. Used to collect the K largest areas
+ * without boxing or sorting all of them.
+ *
+ * @author Alexis Johnson
+ * @version 1.0
+ */
+final class LongMinHeap {
+    private final int limit;
+    private long[] values = new long[16];
+    private int size;
+
+    /**
+     * @param limit: most values kept, at least 1
+     */
+    LongMinHeap(int limit) {
+        this.limit = limit;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return whether the heap holds limit values
+     */
+    boolean isFull() {
+        return size == limit;
+    }
+
+    /**
+     * @return the smallest value kept; the heap must not be empty
+     */
+    long min() {
+        return values[0];
+    }
+
+    /**
+     * Keeps the value if the heap isn't full yet or if it is larger
+     * than the smallest value kept, which is then dropped.
+     *
+     * @param value: value to offer
+     */
+    void offer(long value) {
+        if (size < limit) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, (int) Math.min((long) size * 2, limit));
+            }
+            // sift up
+            int i = size++;
+            while (i > 0 && values[(i-1) / 2] > value) {
+                values[i] = values[(i-1) / 2];
+                i = (i-1) / 2;
+            }
+            values[i] = value;
+        } else if (value > values[0]) {
+            // replace the root and sift down
+            int i = 0;
+            while (true) {
+                int child = 2*i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && values[child + 1] < values[child]) {
+                    child++;
+                }
+                if (values[child] >= value) {
+                    break;
+                }
+                values[i] = values[child];
+                i = child;
+            }
+            values[i] = value;
+        }
+    }
+
+    /**
+     * Drops every value but keeps the capacity.
+     */
+    void clear() {
+        size = 0;
+    }
+
+    /**
+     * @return the values kept, sorted from least to greatest
+     */
+    long[] toSortedArray() {
+        long[] sorted = Arrays.copyOf(values, size);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+}
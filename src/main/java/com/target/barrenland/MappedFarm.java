@@ -0,0 +1,189 @@
+package com.target.barrenland;
+
+import java.awt.Point;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A farm engine whose land matrix lives in a memory-mapped file instead
+ * of on the Java heap, for farms with more coordinates than an array can
+ * hold (tens of billions).
+ *
+ * Each coordinate is one bit: 1 for barren, 0 for fertile. Every row
+ * starts on a fresh long word, so coordinate (x,y) is bit y%64 of word
+ * x*wordsPerRow + y/64. Word indexes are longs and the file is mapped in
+ * chunks of at most 1 GiB, because a single mapping is limited to 2 GiB.
+ *
+ * getFertileLand() copies the matrix one row at a time and labels it with
+ * a RunLabeler, which finds the fertile runs a word at a time. Only a row
+ * and the runs of two rows are ever on the heap, so the heap footprint is
+ * O(length) whatever the size of the farm.
+ *
+ * The operating system pages the file in and out as needed. Close the
+ * farm when done with it; a farm that created its own file deletes it.
+ *
+ * @author Alexis Johnson
+ * @version 1.0
+ */
+public class MappedFarm extends AbstractFarm implements Closeable {
+    private static final int CHUNK_SHIFT = 27; // 2^27 words = 1 GiB per chunk
+    private static final long CHUNK_WORDS = 1L << CHUNK_SHIFT;
+
+    private final long wordsPerRow;
+    private final long words;
+    private final FileChannel channel;
+    private final MappedByteBuffer[] chunks;
+    private final Path temporaryFile; // deleted on close, null if the caller owns the file
+
+    /**
+     * Construct MappedFarm backed by a new temporary file.
+     * Throws an InvalidBoundaryException if the length
+     * or width are not positive.
+     *
+     * @param width: size of the farm along x
+     * @param length: size of the farm along y
+     */
+    public MappedFarm(int width, int length) throws InvalidBoundaryException, IOException {
+        this(width, length, Files.createTempFile("farm", ".land"), true);
+    }
+
+    /**
+     * Construct MappedFarm backed by the given file, which is
+     * created or resized as needed and left in place on close().
+     * Any existing content is treated as the barren mask.
+     *
+     * @param width: size of the farm along x
+     * @param length: size of the farm along y
+     * @param file: the file holding the land matrix
+     */
+    public MappedFarm(int width, int length, Path file) throws InvalidBoundaryException, IOException {
+        this(width, length, file, false);
+    }
+
+    private MappedFarm(int width, int length, Path file, boolean temporary) throws InvalidBoundaryException, IOException {
+        super(width, length);
+        wordsPerRow = (length + 63) >>> 6;
+        words = width * wordsPerRow;
+        temporaryFile = temporary ? file : null;
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        chunks = new MappedByteBuffer[(int) ((words + CHUNK_WORDS - 1) >>> CHUNK_SHIFT)];
+        for (int c=0; c<chunks.length; c++) {
+            long first = (long) c << CHUNK_SHIFT;
+            long size = Math.min(CHUNK_WORDS, words - first) * 8;
+            chunks[c] = channel.map(FileChannel.MapMode.READ_WRITE, first * 8, size);
+        }
+    }
+
+    private long word(long index) {
+        return chunks[(int) (index >>> CHUNK_SHIFT)].getLong((int) (index & (CHUNK_WORDS - 1)) << 3);
+    }
+
+    private void setWord(long index, long value) {
+        chunks[(int) (index >>> CHUNK_SHIFT)].putLong((int) (index & (CHUNK_WORDS - 1)) << 3, value);
+    }
+
+    /**
+     * Makes every coordinate fertile again.
+     */
+    @Override
+    public void resetLand() {
+        for (long w=0; w<words; w++) {
+            setWord(w, 0L);
+        }
+    }
+
+    /**
+     * Sets the bits of the rectangle spanned by the two given
+     * corners, a word at a time.
+     *
+     * @param a: One corner of the barren land
+     * @param b: The other corner of the barren land
+     */
+    @Override
+    public void makeBarren(Point a, Point b) throws InvalidBoundaryException {
+        if (outOfBounds(a) || outOfBounds(b)) {
+            throw new InvalidBoundaryException("Barren land coordinates must be in land matrix.");
+        }
+        int low = Math.min(a.y, b.y);
+        int high = Math.max(a.y, b.y) + 1;
+        int first = low >>> 6;
+        int last = (high - 1) >>> 6;
+        // shifts only use the low 6 bits
+        long firstMask = -1L << low;
+        long lastMask = -1L >>> -high;
+        for (long x=Math.min(a.x, b.x); x<=Math.max(a.x, b.x); x++) {
+            long row = x * wordsPerRow;
+            if (first == last) {
+                setWord(row + first, word(row + first) | (firstMask & lastMask));
+                continue;
+            }
+            setWord(row + first, word(row + first) | firstMask);
+            for (int w=first+1; w<last; w++) {
+                setWord(row + w, -1L);
+            }
+            setWord(row + last, word(row + last) | lastMask);
+        }
+    }
+
+    @Override
+    public long[] getFertileAreas() {
+        return sweep(new RunLabeler());
+    }
+
+    /**
+     * Stops reading the file as soon as no region still to be found could be kept,
+     * see RunLabeler.isSettled().
+     */
+    @Override
+    protected long[] findLargest(int k, long min) {
+        return sweep(new RunLabeler(k, min));
+    }
+
+    /**
+     * Feeds every row to the labeler, stopping early if it settles.
+     *
+     * @param labeler: an empty labeler
+     * @return sorted areas returned by the labeler
+     */
+    private long[] sweep(RunLabeler labeler) {
+        long[] row = new long[(int) wordsPerRow]; // one row copied onto the heap at a time
+        for (long x=0; x<width; x++) {
+            long first = x * wordsPerRow;
+            for (int w=0; w<wordsPerRow; w++) {
+                row[w] = word(first + w);
+            }
+            labeler.addBarrenRow(row, 0, length);
+            if (labeler.isSettled((width - x - 1) * length)) {
+                break;
+            }
+        }
+        long[] areas = labeler.finish();
+        FertileAreas.radixSort(areas, areas.length);
+        return areas;
+    }
+
+    /**
+     * get the number of bytes the land matrix occupies in the file
+     *
+     * @return size in bytes
+     */
+    public long getMatrixBytes() {
+        return words * 8;
+    }
+
+    /**
+     * Closes the file. A temporary file created by the farm is deleted.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+        if (temporaryFile != null) {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.target.barrenland;
+
+import java.util.Arrays;
+
+/**
+ * LandStorage that cuts the flat matrix into pages of PAGE_SIZE cells,
+ * each an int[] holding -1, 0 or a label like IntLandStorage. Pages are
+ * shared copy-on-write between a storage and its forks: fork() only
+ * copies the table of pages, and a page is copied the first time a
+ * storage that doesn't own it writes a different value into it. Writes
+ * that leave a page as it was don't copy it.
+ *
+ * A new storage starts with every page pointing at one shared page of
+ * zeros, so an empty farm costs a pointer per page, and a farm or a fork
+ * costs memory in proportion to the pages it has changed.
+ *
+ * @author Alexis Johnson
+ * @version 1.0
+ */
+final class PagedLandStorage implements LandStorage {
+    static final int PAGE_BITS = 12;
+    static final int PAGE_SIZE = 1 << PAGE_BITS; // cells per page, 16 KB
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    private static final int[] EMPTY_PAGE = new int[PAGE_SIZE]; // never written
+
+    private final int[][] pages;
+    private final boolean[] owned; // false while the page may be shared
+
+    PagedLandStorage(int cells) {
+        pages = new int[(cells + PAGE_MASK) >>> PAGE_BITS][];
+        owned = new boolean[pages.length];
+        Arrays.fill(pages, EMPTY_PAGE);
+    }
+
+    /**
+     * Creates a fork sharing the pages of parent.
+     *
+     * @param parent: the storage to fork
+     */
+    private PagedLandStorage(PagedLandStorage parent) {
+        pages = parent.pages.clone();
+        owned = new boolean[pages.length];
+    }
+
+    /**
+     * Returns a storage with the same cells that shares every page with
+     * this one. Neither storage owns a shared page any more, so whichever
+     * writes to it first gets its own copy.
+     *
+     * @return the fork
+     */
+    @Override
+    public LandStorage fork() {
+        Arrays.fill(owned, false);
+        return new PagedLandStorage(this);
+    }
+
+    @Override
+    public int get(int index) {
+        return pages[index >>> PAGE_BITS][index & PAGE_MASK];
+    }
+
+    @Override
+    public void barrenWords(int from, int count, long[] words) {
+        Arrays.fill(words, 0, (count + 63) >>> 6, 0L);
+        for (int i=0; i<count; i++) {
+            if (get(from + i) == BARREN) {
+                words[i >>> 6] |= 1L << i;
+            }
+        }
+    }
+
+    @Override
+    public void setLabel(int index, int label) {
+        int page = index >>> PAGE_BITS;
+        if (pages[page][index & PAGE_MASK] != label) {
+            writable(page)[index & PAGE_MASK] = label;
+        }
+    }
+
+    @Override
+    public void setLabels(int from, int to, int label) {
+        fill(from, to, label);
+    }
+
+    @Override
+    public void reserveLabels() {
+        // labels written from several threads must not race to copy a page
+        for (int page=0; page<pages.length; page++) {
+            writable(page);
+        }
+    }
+
+    @Override
+    public void setBarren(int from, int to) {
+        fill(from, to, BARREN);
+    }
+
+    @Override
+    public void setFertile(int from, int to) {
+        fill(from, to, 0);
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(pages, EMPTY_PAGE);
+        Arrays.fill(owned, false);
+    }
+
+    @Override
+    public void clearLabels() {
+        for (int page=0; page<pages.length; page++) {
+            int[] values = pages[page];
+            for (int i=0; i<PAGE_SIZE; i++) {
+                if (values[i] > 0) {
+                    values = writable(page);
+                    values[i] = 0;
+                }
+            }
+        }
+    }
+
+    /**
+     * Counts only the pages this storage owns; shared pages are paid
+     * for by whoever copied them.
+     */
+    @Override
+    public long maskBytes() {
+        return 4L * PAGE_SIZE * ownedPages();
+    }
+
+    /**
+     * @return the number of pages this storage has its own copy of
+     */
+    int ownedPages() {
+        int count = 0;
+        for (boolean own : owned) {
+            if (own) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Stores value in the cells [from, to), copying only the pages
+     * in which some cell changes.
+     *
+     * @param from: first flat index, inclusive
+     * @param to: last flat index, exclusive
+     * @param value: value to store
+     */
+    private void fill(int from, int to, int value) {
+        while (from < to) {
+            int page = from >>> PAGE_BITS;
+            int start = from & PAGE_MASK;
+            int end = Math.min(to - (page << PAGE_BITS), PAGE_SIZE);
+            int[] values = pages[page];
+            for (int i=start; i<end; i++) {
+                if (values[i] != value) {
+                    Arrays.fill(writable(page), i, end, value);
+                    break;
+                }
+            }
+            from += end - start;
+        }
+    }
+
+    /**
+     * Makes sure this storage owns a page, copying it if needed.
+     *
+     * @param page: index of the page
+     * @return the page, safe to write
+     */
+    private int[] writable(int page) {
+        if (!owned[page]) {
+            pages[page] = pages[page].clone();
+            owned[page] = true;
+        }
+        return pages[page];
+    }
+}
@@ -0,0 +1,313 @@
+package com.target.barrenland;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Labels the fertile regions of a land matrix on several cores
+ * (see LabelingMode.PARALLEL).
+ *
+ * The matrix is split into square tiles and labeling runs in phases:
+ * 1. every tile is flood filled on its own, concurrently. A cell gets the
+ *    tile-local label k of its piece of region, written as -(k+1) so it
+ *    can't be confused with a barren cell, an unvisited cell or a final label.
+ * 2. local labels are given global ids by offsetting each tile's labels
+ *    by the number of labels in the tiles before it.
+ * 3. every tile compares its last row and column with the first row and
+ *    column of its neighbors, concurrently, and merges the ids that touch
+ *    in a lock-free union-find.
+ * 4. regions are numbered in row-major order of their first cell, which
+ *    is the order the flood fill discovers them in, and their areas are
+ *    totalled from the tiles.
+ * 5. every tile replaces its provisional labels with the final ones,
+ *    concurrently.
+ *
+ * Labels and areas are therefore identical to the sequential modes.
+ *
+ * @author Alexis Johnson
+ * @version 1.0
+ */
+final class ParallelLabeler {
+    static final int DEFAULT_TILE_SIZE = 256;
+
+    private final int tileSize;
+
+    // per analysis state, shared by the tile tasks
+    private LandStorage land;
+    private int width;
+    private int length;
+    private int tilesAcross; // number of tiles along y
+    private int[] tileLabels; // number of local labels in each tile
+    private int[][] tileAreas; // area of each local label, index 0 unused
+    private int[][] tileFirst; // first flat index of each local label
+    private int[] offsets; // global id of a tile's local label k is offsets[tile] + k
+    private AtomicIntegerArray parent; // union-find over global ids
+    private int[] finalLabels; // final label of each global id
+
+    ParallelLabeler(int tileSize) {
+        this.tileSize = tileSize;
+    }
+
+    /**
+     * Labels every unvisited fertile cell, pushing the area of each
+     * new region onto areas in label order.
+     *
+     * @param land: the land matrix
+     * @param width: size of the farm along x
+     * @param length: size of the farm along y
+     * @param areas: receives the area of each region
+     * @param pool: the pool the tiles are labeled on
+     */
+    void label(LandStorage land, int width, int length, IntStack areas, ForkJoinPool pool) {
+        this.land = land;
+        this.width = width;
+        this.length = length;
+        tilesAcross = (length + tileSize - 1) / tileSize;
+        int tiles = ((width + tileSize - 1) / tileSize) * tilesAcross;
+        tileLabels = new int[tiles];
+        tileAreas = new int[tiles][];
+        tileFirst = new int[tiles][];
+        // tiles write labels from several threads, so the label
+        // buffer can't be allocated lazily while they run
+        land.reserveLabels();
+
+        // 1. label each tile on its own
+        pool.invoke(new TileTask(0, tiles, this::labelTile));
+
+        // 2. global ids
+        offsets = new int[tiles];
+        int total = 0;
+        for (int t=0; t<tiles; t++) {
+            offsets[t] = total;
+            total += tileLabels[t];
+        }
+        parent = new AtomicIntegerArray(total + 1);
+        for (int g=0; g<=total; g++) {
+            parent.set(g, g);
+        }
+
+        // 3. merge labels across tile borders
+        pool.invoke(new TileTask(0, tiles, this::mergeBorders));
+
+        // 4. number the regions in order of their first cell
+        int[] rootArea = new int[total + 1];
+        int[] rootFirst = new int[total + 1];
+        Arrays.fill(rootFirst, Integer.MAX_VALUE);
+        for (int t=0; t<tiles; t++) {
+            for (int k=1; k<=tileLabels[t]; k++) {
+                int root = find(offsets[t] + k);
+                rootArea[root] += tileAreas[t][k];
+                rootFirst[root] = Math.min(rootFirst[root], tileFirst[t][k]);
+            }
+        }
+        int roots = 0;
+        long[] order = new long[total];
+        for (int g=1; g<=total; g++) {
+            if (find(g) == g) {
+                order[roots++] = ((long) rootFirst[g] << 32) | g;
+            }
+        }
+        Arrays.sort(order, 0, roots);
+        int[] rootLabel = new int[total + 1];
+        for (int r=0; r<roots; r++) {
+            int root = (int) order[r];
+            rootLabel[root] = r + 1;
+            areas.push(rootArea[root]);
+        }
+        finalLabels = new int[total + 1];
+        for (int g=1; g<=total; g++) {
+            finalLabels[g] = rootLabel[find(g)];
+        }
+
+        // 5. write the final labels
+        pool.invoke(new TileTask(0, tiles, this::relabelTile));
+
+        // don't hold on to the farm or the tables between calls
+        this.land = null;
+        tileAreas = null;
+        tileFirst = null;
+        parent = null;
+        finalLabels = null;
+    }
+
+    /**
+     * Flood fills the unvisited fertile cells of one tile, without
+     * leaving the tile.
+     */
+    private void labelTile(int tile) {
+        int x0 = tile / tilesAcross * tileSize;
+        int y0 = tile % tilesAcross * tileSize;
+        int x1 = Math.min(x0 + tileSize, width);
+        int y1 = Math.min(y0 + tileSize, length);
+        IntStack stack = new IntStack();
+        IntStack localAreas = new IntStack();
+        IntStack localFirst = new IntStack();
+        localAreas.push(0);
+        localFirst.push(0);
+        int k = 0;
+        for (int x=x0; x<x1; x++) {
+            for (int y=y0; y<y1; y++) {
+                int start = x*length + y;
+                if (land.get(start) != 0) {
+                    continue;
+                }
+                k++;
+                int fill = -(k + 1);
+                int area = 0;
+                land.setLabel(start, fill);
+                stack.push(start);
+                while (!stack.isEmpty()) {
+                    int c = stack.pop();
+                    int cx = c / length;
+                    int cy = c % length;
+                    area++;
+                    if (cx > x0 && land.get(c - length) == 0) {
+                        land.setLabel(c - length, fill);
+                        stack.push(c - length);
+                    }
+                    if (cx < x1 - 1 && land.get(c + length) == 0) {
+                        land.setLabel(c + length, fill);
+                        stack.push(c + length);
+                    }
+                    if (cy < y1 - 1 && land.get(c + 1) == 0) {
+                        land.setLabel(c + 1, fill);
+                        stack.push(c + 1);
+                    }
+                    if (cy > y0 && land.get(c - 1) == 0) {
+                        land.setLabel(c - 1, fill);
+                        stack.push(c - 1);
+                    }
+                }
+                localAreas.push(area);
+                localFirst.push(start);
+            }
+        }
+        tileLabels[tile] = k;
+        tileAreas[tile] = localAreas.toArray();
+        tileFirst[tile] = localFirst.toArray();
+    }
+
+    /**
+     * Unions the labels on this tile's last row and column with
+     * the labels they touch in the tiles below and to the right.
+     */
+    private void mergeBorders(int tile) {
+        int x0 = tile / tilesAcross * tileSize;
+        int y0 = tile % tilesAcross * tileSize;
+        int x1 = Math.min(x0 + tileSize, width);
+        int y1 = Math.min(y0 + tileSize, length);
+        if (x1 < width) {
+            int below = tile + tilesAcross;
+            for (int y=y0; y<y1; y++) {
+                int c = (x1 - 1)*length + y;
+                merge(tile, c, below, c + length);
+            }
+        }
+        if (y1 < length) {
+            for (int x=x0; x<x1; x++) {
+                int c = x*length + y1 - 1;
+                merge(tile, c, tile + 1, c + 1);
+            }
+        }
+    }
+
+    private void merge(int tileA, int a, int tileB, int b) {
+        int labelA = provisional(land.get(a));
+        int labelB = provisional(land.get(b));
+        if (labelA != 0 && labelB != 0) {
+            union(offsets[tileA] + labelA, offsets[tileB] + labelB);
+        }
+    }
+
+    /**
+     * Replaces this tile's provisional labels with final ones.
+     */
+    private void relabelTile(int tile) {
+        int x0 = tile / tilesAcross * tileSize;
+        int y0 = tile % tilesAcross * tileSize;
+        int x1 = Math.min(x0 + tileSize, width);
+        int y1 = Math.min(y0 + tileSize, length);
+        int offset = offsets[tile];
+        for (int x=x0; x<x1; x++) {
+            for (int y=y0; y<y1; y++) {
+                int c = x*length + y;
+                int k = provisional(land.get(c));
+                if (k != 0) {
+                    land.setLabel(c, finalLabels[offset + k]);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param value: a value read from the land matrix
+     * @return the local label it encodes, or 0 if it isn't one
+     */
+    private static int provisional(int value) {
+        return value < -1 ? -value - 1 : 0;
+    }
+
+    private int find(int g) {
+        int p = parent.get(g);
+        while (p != g) {
+            // path halving; losing the race only means less compression
+            int grandparent = parent.get(p);
+            parent.compareAndSet(g, p, grandparent);
+            g = grandparent;
+            p = parent.get(g);
+        }
+        return g;
+    }
+
+    private void union(int a, int b) {
+        while (true) {
+            int rootA = find(a);
+            int rootB = find(b);
+            if (rootA == rootB) {
+                return;
+            }
+            // always link the larger root below the smaller one
+            int small = Math.min(rootA, rootB);
+            int large = Math.max(rootA, rootB);
+            if (parent.compareAndSet(large, large, small)) {
+                return;
+            }
+        }
+    }
+
+    private interface TileOperation {
+        void apply(int tile);
+    }
+
+    /**
+     * Applies an operation to a range of tiles, splitting
+     * the range in half until a single tile is left.
+     */
+    private static final class TileTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final TileOperation operation;
+
+        TileTask(int from, int to, TileOperation operation) {
+            this.from = from;
+            this.to = to;
+            this.operation = operation;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                if (from < to) {
+                    operation.apply(from);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new TileTask(from, mid, operation), new TileTask(mid, to, operation));
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package com.target.barrenland;
+
+import java.awt.Point;
+import java.util.Arrays;
+
+/**
+ * A farm engine that stores the land as a region quadtree.
+ *
+ * The farm is embedded in a square whose side is a power of two; the
+ * part of the square outside the farm is barren. Every node of the tree
+ * covers a square block. A leaf is a block that is entirely barren or
+ * entirely fertile, so a big uniform block is a single node however many
+ * coordinates it has. makeBarren() only descends into the nodes along
+ * the rectangle's edges: a node the rectangle covers becomes one barren
+ * leaf, and four barren siblings are merged back into their parent.
+ * Painting a rectangle therefore costs about its perimeter in blocks,
+ * times the depth of the tree, and not its area.
+ *
+ * getFertileLand() labels the fertile leaves instead of coordinates.
+ * Each leaf looks up the fertile leaves across its right and top edges,
+ * the two leaves are joined in a union-find table, and a region's area
+ * is the sum of the sizes of its blocks. The cost grows with the number
+ * of leaves, that is with how ragged the barren land is, not with the
+ * size of the farm.
+ *
+ * Nodes are kept in flat arrays. The four children of a node are stored
+ * next to each other, so a node only records where its first child is,
+ * and blocks of four freed by a merge are reused.
+ *
+ * @author Alexis Johnson
+ * @version 1.0
+ */
+public class QuadTreeFarm extends AbstractFarm {
+    private static final int LEAF = -1; // firstChild of a leaf
+
+    private final long side; // side of the square, a power of two
+
+    // the nodes; the root is node 0, children are at firstChild + 0..3:
+    // lower left, lower right (+x), upper left (+y), upper right
+    private int[] firstChild = new int[64];
+    private boolean[] barren = new boolean[64];
+    private int nodes; // nodes allocated, including freed ones
+    private final IntStack freeBlocks = new IntStack(); // first node of each freed block of 4
+    private int leafCount;
+
+    // scratch space of the labeling, reused between calls
+    private int[] leafId = new int[0]; // id of a fertile leaf by node
+    private int[] parent = new int[0]; // union-find over fertile leaves
+    private long[] area = new long[0];
+
+    /**
+     * Construct QuadTreeFarm with the given width and length.
+     * Throws an InvalidBoundaryException if the length
+     * or width are not positive.
+     *
+     * @param width: size of the farm along x
+     * @param length: size of the farm along y
+     */
+    public QuadTreeFarm(int width, int length) throws InvalidBoundaryException {
+        super(width, length);
+        long s = 1;
+        while (s < Math.max(width, length)) {
+            s <<= 1;
+        }
+        side = s;
+        resetLand();
+    }
+
+    /**
+     * Makes the whole farm fertile again.
+     */
+    @Override
+    public void resetLand() {
+        nodes = 1;
+        freeBlocks.clear();
+        firstChild[0] = LEAF;
+        barren[0] = false;
+        leafCount = 1;
+        // the square outside the farm is barren
+        paint(0, 0, 0, side, width, 0, side - 1, side - 1);
+        paint(0, 0, 0, side, 0, length, width - 1, side - 1);
+    }
+
+    /**
+     * Makes the rectangle spanned by the two given corners barren,
+     * splitting only the nodes along its edges.
+     *
+     * @param a: One corner of the barren land
+     * @param b: The other corner of the barren land
+     */
+    @Override
+    public void makeBarren(Point a, Point b) throws InvalidBoundaryException {
+        if (outOfBounds(a) || outOfBounds(b)) {
+            throw new InvalidBoundaryException("Barren land coordinates must be in land matrix.");
+        }
+        paint(0, 0, 0, side, Math.min(a.x, b.x), Math.min(a.y, b.y), Math.max(a.x, b.x), Math.max(a.y, b.y));
+    }
+
+    @Override
+    public long[] getFertileAreas() {
+        if (leafId.length < nodes) {
+            leafId = new int[Math.max(nodes, leafId.length * 2)];
+        }
+        if (parent.length < leafCount) {
+            parent = new int[Math.max(leafCount, parent.length * 2)];
+            area = new long[parent.length];
+        }
+        // number the fertile leaves
+        int leaves = numberLeaves(0, side, 0);
+        // join every fertile leaf with the fertile leaves across its right and top edges
+        joinNeighbors(0, 0, 0, side);
+        // total each region on its root
+        long[] areas = new long[leaves];
+        int regions = 0;
+        for (int l=0; l<leaves; l++) {
+            int root = find(l);
+            if (root != l) {
+                area[root] += area[l];
+            }
+        }
+        for (int l=0; l<leaves; l++) {
+            if (parent[l] == l) {
+                areas[regions++] = area[l];
+            }
+        }
+        areas = Arrays.copyOf(areas, regions);
+        FertileAreas.radixSort(areas, areas.length);
+        return areas;
+    }
+
+    /**
+     * get the number of nodes in the tree - used for testing
+     *
+     * @return number of nodes
+     */
+    public int getNodeCount() {
+        return nodes - 4 * freeBlocks.size();
+    }
+
+    /**
+     * Makes every coordinate of [minX, maxX] x [minY, maxY] that lies
+     * in the given node barren.
+     *
+     * @param node: the node
+     * @param x0: smallest x of the node's block
+     * @param y0: smallest y of the node's block
+     * @param s: side of the node's block
+     */
+    private void paint(int node, long x0, long y0, long s, long minX, long minY, long maxX, long maxY) {
+        if (barren[node] || maxX < x0 || minX >= x0 + s || maxY < y0 || minY >= y0 + s) {
+            return;
+        }
+        if (minX <= x0 && maxX >= x0 + s - 1 && minY <= y0 && maxY >= y0 + s - 1) {
+            makeLeaf(node, true);
+            return;
+        }
+        // only a block bigger than one coordinate can be partly covered
+        if (firstChild[node] == LEAF) {
+            split(node);
+        }
+        long h = s >>> 1;
+        int c = firstChild[node];
+        paint(c, x0, y0, h, minX, minY, maxX, maxY);
+        paint(c + 1, x0 + h, y0, h, minX, minY, maxX, maxY);
+        paint(c + 2, x0, y0 + h, h, minX, minY, maxX, maxY);
+        paint(c + 3, x0 + h, y0 + h, h, minX, minY, maxX, maxY);
+        if (barren[c] && barren[c + 1] && barren[c + 2] && barren[c + 3]) {
+            makeLeaf(node, true);
+        }
+    }
+
+    /**
+     * Splits a leaf into four leaves of the same kind.
+     *
+     * @param node: the leaf
+     */
+    private void split(int node) {
+        int c;
+        if (!freeBlocks.isEmpty()) {
+            c = freeBlocks.pop();
+        } else {
+            if (nodes + 4 > firstChild.length) {
+                firstChild = Arrays.copyOf(firstChild, firstChild.length * 2);
+                barren = Arrays.copyOf(barren, barren.length * 2);
+            }
+            c = nodes;
+            nodes += 4;
+        }
+        for (int k=0; k<4; k++) {
+            firstChild[c + k] = LEAF;
+            barren[c + k] = barren[node];
+        }
+        firstChild[node] = c;
+        // a leaf became an inner node with four leaves
+        leafCount += 3;
+    }
+
+    /**
+     * Turns a node into a leaf, freeing its subtree.
+     *
+     * @param node: the node
+     * @param isBarren: the kind of leaf
+     */
+    private void makeLeaf(int node, boolean isBarren) {
+        int c = firstChild[node];
+        if (c != LEAF) {
+            for (int k=0; k<4; k++) {
+                makeLeaf(c + k, isBarren);
+            }
+            freeBlocks.push(c);
+            firstChild[node] = LEAF;
+            // four leaves became one
+            leafCount -= 3;
+        }
+        barren[node] = isBarren;
+    }
+
+    /**
+     * Gives every fertile leaf below node an id, starting at next,
+     * and records the size of its block.
+     *
+     * @return the next unused id
+     */
+    private int numberLeaves(int node, long s, int next) {
+        int c = firstChild[node];
+        if (c == LEAF) {
+            if (!barren[node]) {
+                leafId[node] = next;
+                parent[next] = next;
+                area[next] = s * s;
+                next++;
+            }
+            return next;
+        }
+        long h = s >>> 1;
+        for (int k=0; k<4; k++) {
+            next = numberLeaves(c + k, h, next);
+        }
+        return next;
+    }
+
+    /**
+     * Joins every fertile leaf below node with its fertile
+     * neighbors to the right (+x) and above (+y).
+     */
+    private void joinNeighbors(int node, long x0, long y0, long s) {
+        int c = firstChild[node];
+        if (c == LEAF) {
+            if (barren[node]) {
+                return;
+            }
+            if (x0 + s < side) {
+                joinTouching(leafId[node], 0, 0, 0, side, x0 + s, y0, x0 + s, y0 + s - 1);
+            }
+            if (y0 + s < side) {
+                joinTouching(leafId[node], 0, 0, 0, side, x0, y0 + s, x0 + s - 1, y0 + s);
+            }
+            return;
+        }
+        long h = s >>> 1;
+        joinNeighbors(c, x0, y0, h);
+        joinNeighbors(c + 1, x0 + h, y0, h);
+        joinNeighbors(c + 2, x0, y0 + h, h);
+        joinNeighbors(c + 3, x0 + h, y0 + h, h);
+    }
+
+    /**
+     * Joins a leaf with every fertile leaf below node that overlaps
+     * [minX, maxX] x [minY, maxY].
+     *
+     * @param leaf: id of the leaf
+     */
+    private void joinTouching(int leaf, int node, long x0, long y0, long s, long minX, long minY, long maxX, long maxY) {
+        if (barren[node] || maxX < x0 || minX >= x0 + s || maxY < y0 || minY >= y0 + s) {
+            return;
+        }
+        int c = firstChild[node];
+        if (c == LEAF) {
+            union(leaf, leafId[node]);
+            return;
+        }
+        long h = s >>> 1;
+        joinTouching(leaf, c, x0, y0, h, minX, minY, maxX, maxY);
+        joinTouching(leaf, c + 1, x0 + h, y0, h, minX, minY, maxX, maxY);
+        joinTouching(leaf, c + 2, x0, y0 + h, h, minX, minY, maxX, maxY);
+        joinTouching(leaf, c + 3, x0 + h, y0 + h, h, minX, minY, maxX, maxY);
+    }
+
+    private int find(int l) {
+        while (parent[l] != l) {
+            parent[l] = parent[parent[l]];
+            l = parent[l];
+        }
+        return l;
+    }
+
+    private void union(int a, int b) {
+        int rootA = find(a);
+        int rootB = find(b);
+        if (rootA < rootB) {
+            parent[rootB] = rootA;
+        } else if (rootB < rootA) {
+            parent[rootA] = rootB;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.target.barrenland;
+
+import java.awt.Point;
+import java.util.Arrays;
+
+/**
+ * A growable list of barren rectangles for the engines that only
+ * remember rectangles, like CompressedFarm and StreamingFarm. Each
+ * rectangle is 4 ints in one array, minX, minY, maxX, maxY (inclusive),
+ * so nothing is allocated per rectangle and clear() keeps the capacity.
+ *
+ * @author Alexis Johnson
+ * @version 1.0
+ */
+final class RectangleList {
+    private int[] corners = new int[64];
+    private int size; // number of rectangles
+
+    /**
+     * Adds the rectangle spanned by the two given corners,
+     * which may be given in any order.
+     *
+     * @param a: One corner of the rectangle
+     * @param b: The other corner of the rectangle
+     */
+    void add(Point a, Point b) {
+        if (4*size + 4 > corners.length) {
+            corners = Arrays.copyOf(corners, corners.length * 2);
+        }
+        int c = 4*size;
+        corners[c] = Math.min(a.x, b.x);
+        corners[c+1] = Math.min(a.y, b.y);
+        corners[c+2] = Math.max(a.x, b.x);
+        corners[c+3] = Math.max(a.y, b.y);
+        size++;
+    }
+
+    int minX(int r) {
+        return corners[4*r];
+    }
+
+    int minY(int r) {
+        return corners[4*r + 1];
+    }
+
+    int maxX(int r) {
+        return corners[4*r + 2];
+    }
+
+    int maxY(int r) {
+        return corners[4*r + 3];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Removes every rectangle but keeps the capacity.
+     */
+    void clear() {
+        size = 0;
+    }
+}
@@ -0,0 +1,165 @@
+package com.target.barrenland;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads barren rectangles, 4 integers each, from a channel.
+ *
+ * This is the fast path used by the batch mode of BarrenLandAnalysis.
+ * Bytes are read in large blocks into one reused buffer and integers are
+ * parsed straight from the bytes, without a String or Scanner per line or
+ * per number; only the BarrenRectangle of each line and the list holding
+ * them are allocated. Numbers are separated by whitespace, commas, braces and quotes,
+ * straight or curly, so the plain format "0 292 399 307" on each line works
+ * as well as the quoted format of the problem specification:
+ * {"0 292 399 307", "..."}. Any other character is an error, so input like
+ * "1.5" or "12a34" is rejected instead of being read as two numbers.
+ *
+ * @author Alexis Johnson
+ * @version 1.0
+ */
+final class RectangleReader {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int CURLY_QUOTE_LEAD = 0xE2; // first UTF-8 byte of the curly quotes
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final byte[] bytes = buffer.array();
+    private int position;
+    private int limit;
+
+    RectangleReader(ReadableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Reads every rectangle until the end of the channel.
+     * Throws an IOException if the input has a character that is neither
+     * part of a number nor a separator, a number doesn't fit in an int or
+     * the number of integers isn't a multiple of 4.
+     *
+     * @return the rectangles, in input order
+     */
+    List<BarrenRectangle> readAll() throws IOException {
+        List<BarrenRectangle> rectangles = new ArrayList<>();
+        int[] corners = new int[4];
+        int count = 0;
+        while (nextInt(corners, count)) {
+            count++;
+            if (count == 4) {
+                rectangles.add(new BarrenRectangle(corners[0], corners[1], corners[2], corners[3]));
+                count = 0;
+            }
+        }
+        if (count != 0) {
+            throw new IOException("Input must be groups of 4 integers. The last group has " + count + ".");
+        }
+        return rectangles;
+    }
+
+    /**
+     * Parses the next integer into values[index].
+     *
+     * @return false at the end of the channel
+     */
+    private boolean nextInt(int[] values, int index) throws IOException {
+        int b = read();
+        while (b != -1 && isSeparator(b)) {
+            b = read();
+        }
+        if (b == -1) {
+            return false;
+        }
+        if (b != '-' && (b < '0' || b > '9')) {
+            throw unexpected(b);
+        }
+        boolean negative = b == '-';
+        if (negative) {
+            b = read();
+        }
+        if (b < '0' || b > '9') {
+            throw new IOException("Expected a digit after '-'.");
+        }
+        // accumulate as a negative number so Integer.MIN_VALUE fits
+        long value = 0;
+        while (b >= '0' && b <= '9') {
+            value = value*10 - (b - '0');
+            if (value < Integer.MIN_VALUE) {
+                throw new IOException("Number does not fit in an int.");
+            }
+            b = read();
+        }
+        if (b != -1) {
+            // a number must end at a separator, "1.5" is not two numbers
+            if (b != CURLY_QUOTE_LEAD && !isSeparator(b)) {
+                throw unexpected(b);
+            }
+            position--; // the byte after the number may start a curly quote
+        }
+        if (!negative) {
+            value = -value;
+            if (value > Integer.MAX_VALUE) {
+                throw new IOException("Number does not fit in an int.");
+            }
+        }
+        values[index] = (int) value;
+        return true;
+    }
+
+    /**
+     * Tells whether b separates numbers. A curly quote is three bytes in
+     * UTF-8, so for its first byte the other two are read and checked.
+     *
+     * @param b: a byte that was just read
+     * @return true if b is, or starts, a separator
+     */
+    private boolean isSeparator(int b) throws IOException {
+        switch (b) {
+            case ' ': case '\t': case '\n': case '\r': case '\f':
+            case ',': case '{': case '}': case '"': case '\'':
+                return true;
+            case CURLY_QUOTE_LEAD:
+                // the curly quotes U+2018 to U+201D are E2 80 98 to E2 80 9D
+                int second = read();
+                int third = read();
+                if (second != 0x80 || third < 0x98 || third > 0x9D) {
+                    throw unexpected(b);
+                }
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * @param b: the byte that can't be parsed
+     * @return the exception reporting it
+     */
+    private static IOException unexpected(int b) {
+        String character = b >= 0x20 && b < 0x7F ? "'" + (char) b + "'" : String.format("byte 0x%02X", b);
+        return new IOException("Unexpected " + character + " in input, only digits, '-', whitespace, commas, braces and quotes are allowed.");
+    }
+
+    /**
+     * @return the next byte, 0 to 255, or -1 at the end of the channel
+     */
+    private int read() throws IOException {
+        if (position == limit) {
+            buffer.clear();
+            int n;
+            do {
+                n = channel.read(buffer);
+            } while (n == 0);
+            if (n < 0) {
+                return -1;
+            }
+            position = 0;
+            limit = n;
+        }
+        return bytes[position++] & 0xFF;
+    }
+}
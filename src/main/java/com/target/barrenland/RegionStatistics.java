@@ -0,0 +1,190 @@
+package com.target.barrenland;
+
+import java.util.Arrays;
+
+/**
+ * Shape statistics of every fertile region found by one analysis of a
+ * Farm: area, bounding box, perimeter and centroid. Regions are looked
+ * up by the labels Farm.getRegion() returns, from 1 to getRegionCount().
+ *
+ * The statistics are kept as one primitive array per measure (struct of
+ * arrays) indexed by label-1, so they cost a few words per region and
+ * no object per region. A RegionStatistics describes the land at the
+ * time of the analysis and is not changed by later edits to the farm.
+ *
+ * The perimeter counts the edges between a region's coordinates and
+ * barren land or the edge of the farm.
+ *
+ * @author Alexis Johnson
+ * @version 1.0
+ */
+public final class RegionStatistics {
+    private int count;
+    private int[] area;
+    private int[] minX;
+    private int[] maxX;
+    private int[] minY;
+    private int[] maxY;
+    private long[] perimeter;
+    private long[] sumX;
+    private long[] sumY;
+
+    RegionStatistics() {
+        allocate(16);
+    }
+
+    /**
+     * Computes the statistics of labeled land in one row-major pass.
+     * Used after the TWO_PASS and PARALLEL labelers, which don't
+     * visit the regions one at a time.
+     *
+     * @param land: labeled land storage
+     * @param width: size of the farm along x
+     * @param length: size of the farm along y
+     * @param regions: number of labels
+     * @return statistics of every label
+     */
+    static RegionStatistics scan(LandStorage land, int width, int length, int regions) {
+        RegionStatistics statistics = new RegionStatistics();
+        for (int r=1; r<=regions; r++) {
+            statistics.start(r);
+        }
+        for (int x=0; x<width; x++) {
+            for (int y=0; y<length; y++) {
+                int label = land.get(x*length + y);
+                if (label > 0) {
+                    statistics.add(label, x, y, barrenEdges(land, width, length, x, y));
+                }
+            }
+        }
+        return statistics;
+    }
+
+    /**
+     * Counts the sides of (x,y) that touch barren land or the edge of the farm.
+     */
+    static int barrenEdges(LandStorage land, int width, int length, int x, int y) {
+        int edges = 0;
+        if (x == 0 || land.get((x-1)*length + y) == LandStorage.BARREN) {
+            edges++;
+        }
+        if (x == width-1 || land.get((x+1)*length + y) == LandStorage.BARREN) {
+            edges++;
+        }
+        if (y == 0 || land.get(x*length + y-1) == LandStorage.BARREN) {
+            edges++;
+        }
+        if (y == length-1 || land.get(x*length + y+1) == LandStorage.BARREN) {
+            edges++;
+        }
+        return edges;
+    }
+
+    /**
+     * Starts an empty region. Labels must be started in order.
+     *
+     * @param region: the region's label, getRegionCount()+1
+     */
+    void start(int region) {
+        if (region > area.length) {
+            allocate(area.length * 2);
+        }
+        int r = region - 1;
+        minX[r] = Integer.MAX_VALUE;
+        minY[r] = Integer.MAX_VALUE;
+        maxX[r] = -1;
+        maxY[r] = -1;
+        count = region;
+    }
+
+    /**
+     * Adds the coordinate (x,y) to a region.
+     *
+     * @param region: the region's label
+     * @param edges: sides of (x,y) on the region's perimeter
+     */
+    void add(int region, int x, int y, int edges) {
+        int r = region - 1;
+        area[r]++;
+        if (x < minX[r]) {
+            minX[r] = x;
+        }
+        if (x > maxX[r]) {
+            maxX[r] = x;
+        }
+        if (y < minY[r]) {
+            minY[r] = y;
+        }
+        if (y > maxY[r]) {
+            maxY[r] = y;
+        }
+        perimeter[r] += edges;
+        sumX[r] += x;
+        sumY[r] += y;
+    }
+
+    private void allocate(int capacity) {
+        area = area == null ? new int[capacity] : Arrays.copyOf(area, capacity);
+        minX = minX == null ? new int[capacity] : Arrays.copyOf(minX, capacity);
+        maxX = maxX == null ? new int[capacity] : Arrays.copyOf(maxX, capacity);
+        minY = minY == null ? new int[capacity] : Arrays.copyOf(minY, capacity);
+        maxY = maxY == null ? new int[capacity] : Arrays.copyOf(maxY, capacity);
+        perimeter = perimeter == null ? new long[capacity] : Arrays.copyOf(perimeter, capacity);
+        sumX = sumX == null ? new long[capacity] : Arrays.copyOf(sumX, capacity);
+        sumY = sumY == null ? new long[capacity] : Arrays.copyOf(sumY, capacity);
+    }
+
+    /**
+     * @return the number of regions, which is also the largest label
+     */
+    public int getRegionCount() {
+        return count;
+    }
+
+    public int getArea(int region) {
+        return area[index(region)];
+    }
+
+    public int getMinX(int region) {
+        return minX[index(region)];
+    }
+
+    public int getMaxX(int region) {
+        return maxX[index(region)];
+    }
+
+    public int getMinY(int region) {
+        return minY[index(region)];
+    }
+
+    public int getMaxY(int region) {
+        return maxY[index(region)];
+    }
+
+    public long getPerimeter(int region) {
+        return perimeter[index(region)];
+    }
+
+    /**
+     * @return the mean x coordinate of the region
+     */
+    public double getCentroidX(int region) {
+        int r = index(region);
+        return (double) sumX[r] / area[r];
+    }
+
+    /**
+     * @return the mean y coordinate of the region
+     */
+    public double getCentroidY(int region) {
+        int r = index(region);
+        return (double) sumY[r] / area[r];
+    }
+
+    private int index(int region) {
+        if (region < 1 || region > count) {
+            throw new IllegalArgumentException("No fertile region with id " + region + ".");
+        }
+        return region - 1;
+    }
+}
@@ -0,0 +1,310 @@
+package com.target.barrenland;
+
+import java.util.Arrays;
+
+/**
+ * Labels fertile regions run by run, streaming one row at a time.
+ *
+ * A run is a maximal stretch [start, end) of fertile coordinates along y
+ * within one row (one x). Runs in neighboring rows belong to the same
+ * region exactly when their intervals overlap, so regions can be found
+ * by comparing each row with the one before it, without ever looking at
+ * single coordinates.
+ *
+ * Only the previous row is remembered. Every run points at a slot of a
+ * small union-find table, and each slot carries the area gathered so far.
+ * When a row ends, a region that has no run in it can't grow any more:
+ * its area is final and is emitted. The remaining slots are then
+ * compacted, so memory stays proportional to the runs of one row no
+ * matter how many rows are fed.
+ *
+ * Usage: for every row in order, call addRun() for each of its runs in
+ * increasing order, then endRow(). finish() returns the areas.
+ *
+ * A labeler can also keep only the k largest areas of at least some
+ * minimum. It then tracks the area of the regions that are still open,
+ * and isSettled() tells when nothing open or still to come could be
+ * kept, so the caller can stop feeding rows.
+ *
+ * @author Alexis Johnson
+ * @version 1.0
+ */
+final class RunLabeler {
+    // runs of the previous row and the slot of each
+    private int[] prevStart = new int[16];
+    private int[] prevEnd = new int[16];
+    private int[] prevSlot = new int[16];
+    private int prevCount;
+    // runs of the current row
+    private int[] curStart = new int[16];
+    private int[] curEnd = new int[16];
+    private int[] curSlot = new int[16];
+    private int curCount;
+    private int prevIndex; // first previous run that may overlap the next run
+
+    // union-find over slots, with the area gathered by each root
+    private int[] parent = new int[32];
+    private long[] area = new long[32];
+    private int slots;
+    private int[] remap = new int[32];
+    private long[] compactArea = new long[32];
+
+    private long[] closed = new long[16]; // areas of finished regions
+    private int closedCount;
+
+    // only with a limit: the largest areas kept instead of closed
+    private final LongMinHeap largest;
+    private final long min; // smallest area kept
+    private long openArea; // total area of the regions not emitted yet
+
+    /**
+     * Creates a labeler that returns every area.
+     */
+    RunLabeler() {
+        largest = null;
+        min = 0;
+    }
+
+    /**
+     * Creates a labeler that returns only the k largest areas
+     * of at least min, see isSettled().
+     *
+     * @param k: most areas kept, at least 1
+     * @param min: smallest area kept
+     */
+    RunLabeler(int k, long min) {
+        largest = new LongMinHeap(k);
+        this.min = min;
+    }
+
+    /**
+     * Adds the run [start, end) to the current row.
+     * Runs must be added in increasing order and must not touch.
+     */
+    void addRun(int start, int end) {
+        addRun(start, end, end - start);
+    }
+
+    /**
+     * Adds the run [start, end) to the current row, counting runArea
+     * coordinates for it instead of its length - for a row that stands
+     * for several identical rows, as in CompressedFarm.
+     */
+    void addRun(int start, int end, long runArea) {
+        if (curCount == curStart.length) {
+            curStart = Arrays.copyOf(curStart, curCount * 2);
+            curEnd = Arrays.copyOf(curEnd, curCount * 2);
+            curSlot = Arrays.copyOf(curSlot, curCount * 2);
+        }
+        // skip previous runs that end before this one starts
+        while (prevIndex < prevCount && prevEnd[prevIndex] <= start) {
+            prevIndex++;
+        }
+        int slot = -1;
+        for (int p=prevIndex; p<prevCount && prevStart[p] < end; p++) {
+            slot = slot < 0 ? find(prevSlot[p]) : union(slot, prevSlot[p]);
+        }
+        if (slot < 0) {
+            slot = newSlot();
+        }
+        area[slot] += runArea;
+        openArea += runArea;
+        curStart[curCount] = start;
+        curEnd[curCount] = end;
+        curSlot[curCount] = slot;
+        curCount++;
+    }
+
+    /**
+     * Adds a whole row given as a barren mask: bit y%64 of
+     * words[offset + y/64] is set if coordinate y is barren. The fertile
+     * runs are found a word at a time with Long.numberOfTrailingZeros.
+     * Ends the row.
+     *
+     * @param words: the barren mask
+     * @param offset: index of the row's first word
+     * @param length: number of coordinates in the row
+     */
+    void addBarrenRow(long[] words, int offset, int length) {
+        int wordsPerRow = (length + 63) >>> 6;
+        // bits past the end of the row count as barren
+        long tail = (length & 63) == 0 ? 0L : -1L << length;
+        int runStart = -1;
+        for (int w=0; w<wordsPerRow; w++) {
+            long fertile = ~words[offset + w];
+            if (w == wordsPerRow - 1) {
+                fertile &= ~tail;
+            }
+            int base = w << 6;
+            // walk the alternating stretches of 1s (fertile) and 0s (barren)
+            int bit = 0;
+            while (bit < 64) {
+                if (runStart < 0) {
+                    long rest = fertile >>> bit;
+                    if (rest == 0) {
+                        break;
+                    }
+                    bit += Long.numberOfTrailingZeros(rest);
+                    runStart = base + bit;
+                } else {
+                    long rest = ~fertile >>> bit;
+                    if (rest == 0) {
+                        break;
+                    }
+                    bit += Long.numberOfTrailingZeros(rest);
+                    addRun(runStart, base + bit);
+                    runStart = -1;
+                }
+            }
+        }
+        if (runStart >= 0) {
+            addRun(runStart, length);
+        }
+        endRow();
+    }
+
+    /**
+     * Ends the current row: emits the regions that stopped in it
+     * and compacts the table for the next row.
+     */
+    void endRow() {
+        // every root still used by the current row gets a compact slot
+        Arrays.fill(remap, 0, slots, -1);
+        int live = 0;
+        for (int r=0; r<curCount; r++) {
+            int root = find(curSlot[r]);
+            if (remap[root] < 0) {
+                remap[root] = live++;
+            }
+        }
+        // regions of the previous row that did not continue are finished
+        for (int r=0; r<prevCount; r++) {
+            int root = find(prevSlot[r]);
+            if (remap[root] == -1) {
+                emit(area[root]);
+                remap[root] = -2; // emitted
+            }
+        }
+        if (compactArea.length < live) {
+            compactArea = new long[Math.max(live, compactArea.length * 2)];
+        }
+        for (int r=0; r<curCount; r++) {
+            int root = find(curSlot[r]);
+            compactArea[remap[root]] = area[root];
+            curSlot[r] = remap[root];
+        }
+        for (int s=0; s<live; s++) {
+            parent[s] = s;
+            area[s] = compactArea[s];
+        }
+        slots = live;
+
+        // the current row becomes the previous row
+        int[] swap = prevStart;
+        prevStart = curStart;
+        curStart = swap;
+        swap = prevEnd;
+        prevEnd = curEnd;
+        curEnd = swap;
+        swap = prevSlot;
+        prevSlot = curSlot;
+        curSlot = swap;
+        prevCount = curCount;
+        curCount = 0;
+        prevIndex = 0;
+    }
+
+    /**
+     * Tells whether the areas kept are final, when the regions still to
+     * be found can have at most remaining coordinates between them. A
+     * region that is open or still to come is at most openArea plus
+     * remaining, so once that can't reach min or beat the smallest area
+     * of a full heap, the caller may call finish() without feeding the
+     * rest of the rows. A labeler that keeps every area never settles.
+     *
+     * @param remaining: coordinates in the rows not fed yet
+     * @return true if the rest of the rows can't change the result
+     */
+    boolean isSettled(long remaining) {
+        if (largest == null) {
+            return false;
+        }
+        long bound = openArea + remaining;
+        return bound < min || (largest.isFull() && bound <= largest.min());
+    }
+
+    /**
+     * Emits the regions that are still open and returns the area
+     * of every region, in no particular order, or the areas kept
+     * from least to greatest. The labeler is empty again afterwards.
+     *
+     * @return areas of all regions, or the areas kept
+     */
+    long[] finish() {
+        if (curCount > 0) {
+            endRow();
+        }
+        // an empty row closes everything
+        endRow();
+        long[] result;
+        if (largest != null) {
+            result = largest.toSortedArray();
+            largest.clear();
+        } else {
+            result = Arrays.copyOf(closed, closedCount);
+        }
+        closedCount = 0;
+        prevCount = 0;
+        slots = 0;
+        return result;
+    }
+
+    private int newSlot() {
+        if (slots == parent.length) {
+            parent = Arrays.copyOf(parent, slots * 2);
+            area = Arrays.copyOf(area, slots * 2);
+            remap = Arrays.copyOf(remap, slots * 2);
+        }
+        parent[slots] = slots;
+        area[slots] = 0;
+        return slots++;
+    }
+
+    private void emit(long regionArea) {
+        openArea -= regionArea;
+        if (largest != null) {
+            if (regionArea >= min) {
+                largest.offer(regionArea);
+            }
+            return;
+        }
+        if (closedCount == closed.length) {
+            closed = Arrays.copyOf(closed, closedCount * 2);
+        }
+        closed[closedCount++] = regionArea;
+    }
+
+    private int find(int s) {
+        while (parent[s] != s) {
+            parent[s] = parent[parent[s]];
+            s = parent[s];
+        }
+        return s;
+    }
+
+    /**
+     * Merges the regions of two slots, adding up their areas.
+     *
+     * @return the root of the merged region
+     */
+    private int union(int a, int b) {
+        int rootA = find(a);
+        int rootB = find(b);
+        if (rootA == rootB) {
+            return rootA;
+        }
+        parent[rootB] = rootA;
+        area[rootA] += area[rootB];
+        return rootA;
+    }
+}
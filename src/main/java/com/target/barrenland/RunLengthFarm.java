@@ -0,0 +1,170 @@
+package com.target.barrenland;
+
+import java.awt.Point;
+import java.util.Arrays;
+
+/**
+ * A farm engine that stores each row of the land matrix as a sorted
+ * list of fertile runs instead of one value per coordinate.
+ *
+ * Row x is kept as pairs [start, end) of consecutive fertile y
+ * coordinates. makeBarren() cuts the rectangle's y range out of the runs
+ * of each of its rows, and getFertileLand() labels the farm run by run
+ * with a RunLabeler. Memory and time grow with the number of runs, which
+ * is small for farms that are mostly fertile with a few long barren
+ * strips, no matter how long the rows are.
+ *
+ * @author Alexis Johnson
+ * @version 1.0
+ */
+public class RunLengthFarm extends AbstractFarm {
+    private final int[][] rows; // fertile runs of each row: start, end, start, end, ...
+    private final int[] sizes; // number of ints used in each row
+    private int[] scratch = new int[16]; // reused while a row is cut
+
+    /**
+     * Construct RunLengthFarm with the given width and length.
+     * Throws an InvalidBoundaryException if the length
+     * or width are not positive.
+     *
+     * @param width: size of the farm along x
+     * @param length: size of the farm along y
+     */
+    public RunLengthFarm(int width, int length) throws InvalidBoundaryException {
+        super(width, length);
+        rows = new int[width][];
+        sizes = new int[width];
+        resetLand();
+    }
+
+    /**
+     * Makes every row a single fertile run again.
+     */
+    @Override
+    public void resetLand() {
+        for (int x=0; x<width; x++) {
+            if (rows[x] == null || rows[x].length > 2) {
+                rows[x] = new int[]{0, length};
+            } else {
+                rows[x][0] = 0;
+                rows[x][1] = length;
+            }
+            sizes[x] = 2;
+        }
+    }
+
+    /**
+     * Cuts the rectangle spanned by the two given corners out
+     * of the fertile runs of each row it covers.
+     *
+     * @param a: One corner of the barren land
+     * @param b: The other corner of the barren land
+     */
+    @Override
+    public void makeBarren(Point a, Point b) throws InvalidBoundaryException {
+        if (outOfBounds(a) || outOfBounds(b)) {
+            throw new InvalidBoundaryException("Barren land coordinates must be in land matrix.");
+        }
+        int low = Math.min(a.y, b.y);
+        int high = Math.max(a.y, b.y) + 1;
+        for (int x=Math.min(a.x, b.x); x<=Math.max(a.x, b.x); x++) {
+            cut(x, low, high);
+        }
+    }
+
+    /**
+     * Removes [low, high) from the fertile runs of row x.
+     */
+    private void cut(int x, int low, int high) {
+        int[] runs = rows[x];
+        int size = sizes[x];
+        // first run that ends after low
+        int first = 0;
+        int hi = size / 2;
+        while (first < hi) {
+            int mid = (first + hi) >>> 1;
+            if (runs[2*mid + 1] <= low) {
+                first = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        first *= 2;
+        if (first == size || runs[first] >= high) {
+            return; // nothing fertile in [low, high)
+        }
+        // runs from first to last overlap the cut
+        int last = first;
+        while (last + 2 < size && runs[last + 2] < high) {
+            last += 2;
+        }
+        // what is left of them: a piece before low and a piece after high
+        int n = 0;
+        if (runs[first] < low) {
+            scratch[n++] = runs[first];
+            scratch[n++] = low;
+        }
+        if (runs[last + 1] > high) {
+            scratch[n++] = high;
+            scratch[n++] = runs[last + 1];
+        }
+        int removed = last + 2 - first;
+        int newSize = size - removed + n;
+        if (newSize > runs.length) {
+            runs = Arrays.copyOf(runs, Math.max(newSize, runs.length * 2));
+            rows[x] = runs;
+        }
+        System.arraycopy(runs, last + 2, runs, first + n, size - last - 2);
+        System.arraycopy(scratch, 0, runs, first, n);
+        sizes[x] = newSize;
+    }
+
+    @Override
+    public long[] getFertileAreas() {
+        return sweep(new RunLabeler());
+    }
+
+    /**
+     * Stops reading rows as soon as no region still to be found could be kept,
+     * see RunLabeler.isSettled().
+     */
+    @Override
+    protected long[] findLargest(int k, long min) {
+        return sweep(new RunLabeler(k, min));
+    }
+
+    /**
+     * Feeds the runs of every row to the labeler, stopping early if it settles.
+     *
+     * @param labeler: an empty labeler
+     * @return sorted areas returned by the labeler
+     */
+    private long[] sweep(RunLabeler labeler) {
+        for (int x=0; x<width; x++) {
+            int[] runs = rows[x];
+            for (int r=0; r<sizes[x]; r+=2) {
+                labeler.addRun(runs[r], runs[r+1]);
+            }
+            labeler.endRow();
+            if (labeler.isSettled((long) (width - x - 1) * length)) {
+                break;
+            }
+        }
+        long[] areas = labeler.finish();
+        FertileAreas.radixSort(areas, areas.length);
+        return areas;
+    }
+
+    /**
+     * get the number of fertile runs stored for the whole farm
+     *
+     * @return number of runs
+     */
+    public long getRunCount() {
+        long runs = 0;
+        for (int x=0; x<width; x++) {
+            runs += sizes[x] / 2;
+        }
+        return runs;
+    }
+}
@@ -0,0 +1,169 @@
+package com.target.barrenland;
+
+import java.awt.Point;
+import java.util.Arrays;
+
+/**
+ * A farm engine that never holds more than a band of rows in memory.
+ *
+ * Like CompressedFarm it only remembers the barren rectangles. When the
+ * fertile land is requested it sweeps the farm one band of rows at a time:
+ * the rectangles that cover the band are painted into a small bit mask,
+ * and each row of the band is handed to a RunLabeler. The labeler carries
+ * the pending area of every region that is still open across band
+ * boundaries in a union-find table and emits a region's area as soon as
+ * the region closes.
+ *
+ * Peak memory is the band (bandRows * length bits) plus O(length) for the
+ * runs of two rows and the open regions, however wide the farm is. The
+ * result is identical to Farm.getFertileLand().
+ *
+ * @author Alexis Johnson
+ * @version 1.0
+ */
+public class StreamingFarm extends AbstractFarm {
+    public static final int DEFAULT_BAND_ROWS = 64;
+
+    private final int bandRows;
+    private final RectangleList rectangles = new RectangleList(); // barren rectangles
+
+    /**
+     * Construct StreamingFarm with the given width and length,
+     * sweeping DEFAULT_BAND_ROWS rows at a time.
+     *
+     * @param width: size of the farm along x
+     * @param length: size of the farm along y
+     */
+    public StreamingFarm(int width, int length) throws InvalidBoundaryException {
+        this(width, length, DEFAULT_BAND_ROWS);
+    }
+
+    /**
+     * Construct StreamingFarm with the given width and length.
+     * Throws an InvalidBoundaryException if the length
+     * or width are not positive.
+     *
+     * @param width: size of the farm along x
+     * @param length: size of the farm along y
+     * @param bandRows: number of rows materialized at a time, at least 1
+     */
+    public StreamingFarm(int width, int length, int bandRows) throws InvalidBoundaryException {
+        super(width, length);
+        if (bandRows < 1) {
+            throw new IllegalArgumentException("A band must have at least 1 row.");
+        }
+        this.bandRows = bandRows;
+    }
+
+    /**
+     * Removes every barren rectangle.
+     */
+    @Override
+    public void resetLand() {
+        rectangles.clear();
+    }
+
+    /**
+     * Records the rectangle spanned by the two given corners.
+     *
+     * @param a: One corner of the barren land
+     * @param b: The other corner of the barren land
+     */
+    @Override
+    public void makeBarren(Point a, Point b) throws InvalidBoundaryException {
+        if (outOfBounds(a) || outOfBounds(b)) {
+            throw new InvalidBoundaryException("Barren land coordinates must be in land matrix.");
+        }
+        rectangles.add(a, b);
+    }
+
+    @Override
+    public long[] getFertileAreas() {
+        return sweep(new RunLabeler());
+    }
+
+    /**
+     * Stops sweeping as soon as no region still to be found could be kept,
+     * see RunLabeler.isSettled().
+     */
+    @Override
+    protected long[] findLargest(int k, long min) {
+        return sweep(new RunLabeler(k, min));
+    }
+
+    /**
+     * Feeds the farm to the labeler band by band, stopping early if it settles.
+     *
+     * @param labeler: an empty labeler
+     * @return sorted areas returned by the labeler
+     */
+    private long[] sweep(RunLabeler labeler) {
+        // rectangles in order of their first row
+        int count = rectangles.size();
+        long[] order = new long[count];
+        for (int r=0; r<count; r++) {
+            order[r] = ((long) rectangles.minX(r) << 32) | r;
+        }
+        Arrays.sort(order);
+
+        int wordsPerRow = (length + 63) >>> 6;
+        long[] band = new long[bandRows * wordsPerRow];
+        IntStack active = new IntStack(); // the rectangles overlapping the band
+        IntStack kept = new IntStack();
+        int next = 0;
+        boolean settled = false;
+        for (long x0=0; x0<width && !settled; x0+=bandRows) {
+            int first = (int) x0;
+            int last = (int) Math.min(width - 1, x0 + bandRows - 1);
+            // drop the rectangles that ended before this band, add the ones starting in it
+            kept.clear();
+            for (int a=0; a<active.size(); a++) {
+                if (rectangles.maxX(active.get(a)) >= first) {
+                    kept.push(active.get(a));
+                }
+            }
+            IntStack swap = active;
+            active = kept;
+            kept = swap;
+            while (next < count && (int) (order[next] >>> 32) <= last) {
+                active.push((int) order[next]);
+                next++;
+            }
+
+            Arrays.fill(band, 0L);
+            for (int a=0; a<active.size(); a++) {
+                int r = active.get(a);
+                int low = rectangles.minY(r);
+                int high = rectangles.maxY(r) + 1;
+                for (int x=Math.max(rectangles.minX(r), first); x<=Math.min(rectangles.maxX(r), last); x++) {
+                    setBits(band, (x - first) * wordsPerRow, low, high);
+                }
+            }
+            for (int x=first; x<=last && !settled; x++) {
+                labeler.addBarrenRow(band, (x - first) * wordsPerRow, length);
+                settled = labeler.isSettled((long) (width - x - 1) * length);
+            }
+        }
+        long[] areas = labeler.finish();
+        FertileAreas.radixSort(areas, areas.length);
+        return areas;
+    }
+
+    /**
+     * Sets bits [from, to) of the row starting at words[offset].
+     */
+    private static void setBits(long[] words, int offset, int from, int to) {
+        int first = offset + (from >>> 6);
+        int last = offset + ((to - 1) >>> 6);
+        // shifts only use the low 6 bits
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> -to;
+        if (first == last) {
+            words[first] |= firstMask & lastMask;
+            return;
+        }
+        words[first] |= firstMask;
+        Arrays.fill(words, first + 1, last, -1L);
+        words[last] |= lastMask;
+    }
+}
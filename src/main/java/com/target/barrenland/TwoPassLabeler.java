@@ -0,0 +1,133 @@
+package com.target.barrenland;
+
+/**
+ * Labels the fertile regions of a land matrix with the two-pass
+ * scanline algorithm (see LabelingMode.TWO_PASS).
+ *
+ * During the first pass a cell's provisional label p is written into the
+ * storage as -(p+1), so it can't be confused with a barren cell (-1),
+ * an unvisited cell (0) or a final label (>0). Provisional labels start
+ * at 1 and a union always keeps the smaller root, so after the first pass
+ * every label's parent is smaller than itself and the table can be
+ * flattened in a single ascending sweep.
+ *
+ * Final labels are handed out in row-major order of each region's first
+ * cell, which is exactly the order the flood fill discovers regions in,
+ * so both modes leave identical labels behind.
+ *
+ * The tables are kept between calls, so a labeler can be reused
+ * without allocating once it has grown.
+ *
+ * @author Alexis Johnson
+ * @version 1.0
+ */
+final class TwoPassLabeler {
+    private final IntStack parent = new IntStack(); // union-find table over provisional labels
+    private final IntStack count = new IntStack(); // cells per provisional label, then per root
+    private final IntStack finalLabel = new IntStack(); // final label of each root, 0 until seen
+
+    /**
+     * Labels every unvisited fertile cell, pushing the area of each
+     * new region onto areas in label order.
+     *
+     * @param land: the land matrix
+     * @param width: size of the farm along x
+     * @param length: size of the farm along y
+     * @param areas: receives the area of each region
+     */
+    void label(LandStorage land, int width, int length, IntStack areas) {
+        parent.clear();
+        count.clear();
+        // provisional label 0 means "no label"
+        parent.push(0);
+        count.push(0);
+
+        // first pass: provisional labels and equivalences
+        for (int x=0; x<width; x++) {
+            int row = x*length;
+            for (int y=0; y<length; y++) {
+                int c = row + y;
+                if (land.get(c) != 0) {
+                    continue;
+                }
+                int up = x > 0 ? provisional(land.get(c - length)) : 0;
+                int left = y > 0 ? provisional(land.get(c - 1)) : 0;
+                int p;
+                if (up == 0 && left == 0) {
+                    p = parent.size();
+                    parent.push(p);
+                    count.push(0);
+                } else if (up == 0) {
+                    p = left;
+                } else {
+                    p = up;
+                    if (left != 0) {
+                        union(up, left);
+                    }
+                }
+                count.set(p, count.get(p) + 1);
+                land.setLabel(c, -(p + 1));
+            }
+        }
+
+        // flatten the table and total the cells of each region on its root
+        finalLabel.clear();
+        finalLabel.push(0);
+        for (int p=1; p<parent.size(); p++) {
+            int root = parent.get(parent.get(p));
+            parent.set(p, root);
+            if (root != p) {
+                count.set(root, count.get(root) + count.get(p));
+            }
+            finalLabel.push(0);
+        }
+
+        // second pass: replace provisional labels with final ones
+        int next = 1;
+        for (int x=0; x<width; x++) {
+            int row = x*length;
+            for (int y=0; y<length; y++) {
+                int c = row + y;
+                int p = provisional(land.get(c));
+                if (p == 0) {
+                    continue;
+                }
+                int root = parent.get(p);
+                int label = finalLabel.get(root);
+                if (label == 0) {
+                    label = next++;
+                    finalLabel.set(root, label);
+                    areas.push(count.get(root));
+                }
+                land.setLabel(c, label);
+            }
+        }
+    }
+
+    /**
+     * @param value: a value read from the land matrix
+     * @return the provisional label it encodes, or 0 if it isn't one
+     */
+    private static int provisional(int value) {
+        return value < -1 ? -value - 1 : 0;
+    }
+
+    private int find(int p) {
+        while (parent.get(p) != p) {
+            // path halving
+            parent.set(p, parent.get(parent.get(p)));
+            p = parent.get(p);
+        }
+        return p;
+    }
+
+    private void union(int a, int b) {
+        int rootA = find(a);
+        int rootB = find(b);
+        if (rootA < rootB) {
+            parent.set(rootB, rootA);
+        } else if (rootB < rootA) {
+            parent.set(rootA, rootB);
+        }
+    }
+}
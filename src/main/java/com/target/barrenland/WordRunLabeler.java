@@ -0,0 +1,280 @@
+package com.target.barrenland;
+
+import java.util.Arrays;
+
+/**
+ * Labels the fertile regions of a land matrix a word at a time
+ * (see LabelingMode.WORD_RUNS).
+ *
+ * Each row is read as a bit-row of fertile cells, 64 cells per long,
+ * straight from the storage's barren mask. The fertile runs of a row are
+ * found with Long.numberOfTrailingZeros instead of looking at single
+ * cells, and the AND of the row with the previous one tells, for a whole
+ * word at once, whether a run touches anything above it. Only runs that
+ * do are compared with the runs of the previous row.
+ *
+ * Like TwoPassLabeler, a run's provisional label p is written as -(p+1)
+ * and a union always keeps the smaller root, so the table is flattened
+ * in one ascending sweep. The second pass finds the runs again and
+ * writes each run's final label with a single setLabels() call. Final
+ * labels are handed out in row-major order of each region's first cell,
+ * so the labels are the same as those of the flood fill.
+ *
+ * The tables are kept between calls, so a labeler can be reused
+ * without allocating once it has grown.
+ *
+ * @author Alexis Johnson
+ * @version 1.0
+ */
+final class WordRunLabeler {
+    private final IntStack parent = new IntStack(); // union-find table over provisional labels
+    private final IntStack count = new IntStack(); // cells per provisional label, then per root
+    private final IntStack finalLabel = new IntStack(); // final label of each root, 0 until seen
+
+    // fertile bit-rows: the current row, the previous row and their AND
+    private long[] cur = new long[0];
+    private long[] prev = new long[0];
+    private long[] touch = new long[0];
+
+    // runs of the current and previous row, with the provisional label of each
+    private int[] curStart = new int[0];
+    private int[] curEnd = new int[0];
+    private int[] curLabel = new int[0];
+    private int[] prevStart = new int[0];
+    private int[] prevEnd = new int[0];
+    private int[] prevLabel = new int[0];
+
+    /**
+     * Labels every unvisited fertile cell, pushing the area of each
+     * new region onto areas in label order. The land must not carry
+     * any labels yet.
+     *
+     * @param land: the land matrix
+     * @param width: size of the farm along x
+     * @param length: size of the farm along y
+     * @param areas: receives the area of each region
+     */
+    void label(LandStorage land, int width, int length, IntStack areas) {
+        int words = (length + 63) >>> 6;
+        reserve(words, length / 2 + 1);
+        parent.clear();
+        count.clear();
+        // provisional label 0 means "no label"
+        parent.push(0);
+        count.push(0);
+
+        // first pass: provisional labels and equivalences
+        Arrays.fill(prev, 0, words, 0L);
+        int prevCount = 0;
+        for (int x=0; x<width; x++) {
+            int row = x*length;
+            fertileRow(land, row, length, cur);
+            for (int w=0; w<words; w++) {
+                touch[w] = cur[w] & prev[w];
+            }
+            int runs = findRuns(cur, words, length);
+            int p = 0; // first previous run that may overlap the next run
+            for (int r=0; r<runs; r++) {
+                int start = curStart[r];
+                int end = curEnd[r];
+                int label = 0;
+                if (anyBit(touch, start, end)) {
+                    while (prevEnd[p] <= start) {
+                        p++;
+                    }
+                    for (int q=p; q<prevCount && prevStart[q] < end; q++) {
+                        label = label == 0 ? find(prevLabel[q]) : union(label, prevLabel[q]);
+                    }
+                } else {
+                    label = parent.size();
+                    parent.push(label);
+                    count.push(0);
+                }
+                count.set(label, count.get(label) + end - start);
+                curLabel[r] = label;
+                land.setLabels(row + start, row + end, -(label + 1));
+            }
+            // the current row becomes the previous row
+            long[] swapWords = prev;
+            prev = cur;
+            cur = swapWords;
+            int[] swap = prevStart;
+            prevStart = curStart;
+            curStart = swap;
+            swap = prevEnd;
+            prevEnd = curEnd;
+            curEnd = swap;
+            swap = prevLabel;
+            prevLabel = curLabel;
+            curLabel = swap;
+            prevCount = runs;
+        }
+
+        // flatten the table and total the cells of each region on its root
+        finalLabel.clear();
+        finalLabel.push(0);
+        for (int p=1; p<parent.size(); p++) {
+            int root = parent.get(parent.get(p));
+            parent.set(p, root);
+            if (root != p) {
+                count.set(root, count.get(root) + count.get(p));
+            }
+            finalLabel.push(0);
+        }
+
+        // second pass: replace provisional labels with final ones, a run at a time
+        int next = 1;
+        for (int x=0; x<width; x++) {
+            int row = x*length;
+            fertileRow(land, row, length, cur);
+            int runs = findRuns(cur, words, length);
+            for (int r=0; r<runs; r++) {
+                int root = parent.get(-land.get(row + curStart[r]) - 1);
+                int label = finalLabel.get(root);
+                if (label == 0) {
+                    label = next++;
+                    finalLabel.set(root, label);
+                    areas.push(count.get(root));
+                }
+                land.setLabels(row + curStart[r], row + curEnd[r], label);
+            }
+        }
+    }
+
+    /**
+     * Reads one row as fertile bits. Bits past the end of the row are 0.
+     *
+     * @param land: the land matrix
+     * @param row: flat index of the row's first cell
+     * @param length: number of cells in the row
+     * @param fertile: receives the row
+     */
+    private static void fertileRow(LandStorage land, int row, int length, long[] fertile) {
+        land.barrenWords(row, length, fertile);
+        int words = (length + 63) >>> 6;
+        for (int w=0; w<words; w++) {
+            fertile[w] = ~fertile[w];
+        }
+        if ((length & 63) != 0) {
+            fertile[words - 1] &= ~(-1L << length);
+        }
+    }
+
+    /**
+     * Finds the runs of fertile bits of a row and stores them in
+     * curStart and curEnd, in increasing order.
+     *
+     * @param fertile: the row's fertile bits
+     * @param words: number of words in the row
+     * @param length: number of cells in the row
+     * @return the number of runs
+     */
+    private int findRuns(long[] fertile, int words, int length) {
+        int runs = 0;
+        int runStart = -1; // start of a run that goes on into the next word
+        for (int w=0; w<words; w++) {
+            long word = fertile[w];
+            int base = w << 6;
+            if (runStart >= 0) {
+                if (word == -1L) {
+                    continue;
+                }
+                int end = Long.numberOfTrailingZeros(~word);
+                curStart[runs] = runStart;
+                curEnd[runs++] = base + end;
+                runStart = -1;
+                word &= -1L << end;
+            }
+            while (word != 0) {
+                int start = Long.numberOfTrailingZeros(word);
+                // ~(word >>> start) has its lowest set bit at the end of the run
+                int end = start + Long.numberOfTrailingZeros(~(word >>> start));
+                if (end == 64) {
+                    runStart = base + start;
+                    break;
+                }
+                curStart[runs] = base + start;
+                curEnd[runs++] = base + end;
+                word &= -1L << end;
+            }
+        }
+        if (runStart >= 0) {
+            curStart[runs] = runStart;
+            curEnd[runs++] = length;
+        }
+        return runs;
+    }
+
+    /**
+     * @param words: a bit-row
+     * @param from: first bit, inclusive
+     * @param to: last bit, exclusive
+     * @return whether any bit in [from, to) is set
+     */
+    private static boolean anyBit(long[] words, int from, int to) {
+        int first = from >>> 6;
+        int last = (to - 1) >>> 6;
+        // shifts only use the low 6 bits of the index
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> -to;
+        if (first == last) {
+            return (words[first] & firstMask & lastMask) != 0;
+        }
+        if ((words[first] & firstMask) != 0 || (words[last] & lastMask) != 0) {
+            return true;
+        }
+        for (int w=first+1; w<last; w++) {
+            if (words[w] != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Grows the row buffers.
+     *
+     * @param words: words per row
+     * @param runs: most runs in a row
+     */
+    private void reserve(int words, int runs) {
+        if (cur.length < words) {
+            cur = new long[words];
+            prev = new long[words];
+            touch = new long[words];
+        }
+        if (curStart.length < runs) {
+            curStart = new int[runs];
+            curEnd = new int[runs];
+            curLabel = new int[runs];
+            prevStart = new int[runs];
+            prevEnd = new int[runs];
+            prevLabel = new int[runs];
+        }
+    }
+
+    private int find(int p) {
+        while (parent.get(p) != p) {
+            // path halving
+            parent.set(p, parent.get(parent.get(p)));
+            p = parent.get(p);
+        }
+        return p;
+    }
+
+    /**
+     * Merges two labels, keeping the smaller root.
+     *
+     * @return the root of the merged region
+     */
+    private int union(int a, int b) {
+        int rootA = find(a);
+        int rootB = find(b);
+        if (rootA < rootB) {
+            parent.set(rootB, rootA);
+            return rootA;
+        }
+        parent.set(rootA, rootB);
+        return rootB;
+    }
+}
@@ -0,0 +1,142 @@
+package com.target.barrenland;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+public class CompressedFarmTest {
+
+    CompressedFarm bigFarm;
+    CompressedFarm squareFarm;
+
+    @Before
+    public void setup() throws InvalidBoundaryException {
+        bigFarm = new CompressedFarm(400, 600);
+        squareFarm = new CompressedFarm(30, 30);
+    }
+
+    @Test
+    public void ConstructorInvalidBoundariesTest() {
+        Exception exception = assertThrows(InvalidBoundaryException.class, () -> new CompressedFarm(0, 20));
+        assertTrue(exception.getMessage().contains("Length and width must be greater than 0."));
+    }
+
+    @Test
+    public void MakeBarrenInvalidBoundariesTest() {
+        Exception exception = assertThrows(InvalidBoundaryException.class, () -> {
+            squareFarm.makeBarren(new Point(0,3), new Point(4,30));
+        });
+        assertTrue(exception.getMessage().contains("Barren land coordinates must be in land matrix."));
+    }
+
+    @Test
+    public void GetFertileLandNoBarrenTest() {
+        assertEquals(bigFarm.getFertileLand(), Arrays.asList(400 * 600));
+    }
+
+    @Test
+    public void GetFertileLandAllBarrenTest() throws InvalidBoundaryException {
+        squareFarm.makeBarren(new Point(29,29), new Point(0,0));
+        assertEquals(squareFarm.getFertileLand(), new ArrayList<>());
+    }
+
+    // same fixture as FarmTest.GetFertileLandMultipleFertileAreasTest
+    @Test
+    public void GetFertileLandMultipleFertileAreasTest() throws InvalidBoundaryException {
+        squareFarm.makeBarren(new Point(3,4), new Point(8,29));
+        squareFarm.makeBarren(new Point(0,25), new Point(16,16));
+        squareFarm.makeBarren(new Point(28,2), new Point(20,7));
+        squareFarm.makeBarren(new Point(29,6), new Point(7,10));
+        assertEquals(squareFarm.getFertileLand(), Arrays.asList(12, 162, 319));
+    }
+
+    @Test
+    public void ProvidedCaseTest() throws InvalidBoundaryException {
+        bigFarm.makeBarren(new Point(0,292), new Point(399, 307));
+        assertEquals(bigFarm.getFertileLand(), Arrays.asList(116800, 116800));
+        bigFarm.resetLand();
+        bigFarm.makeBarren(new Point(48,192), new Point(351, 207));
+        bigFarm.makeBarren(new Point(48,392), new Point(351, 407));
+        bigFarm.makeBarren(new Point(120,52), new Point(135, 547));
+        bigFarm.makeBarren(new Point(260,52), new Point(275, 547));
+        assertEquals(bigFarm.getFertileLand(), Arrays.asList(22816, 192608));
+    }
+
+    // random rectangles must give exactly the same result as the grid engine
+    @Test
+    public void MatchesGridEngineTest() throws InvalidBoundaryException {
+        Random random = new Random(42);
+        for (int round=0; round<50; round++) {
+            int width = 1 + random.nextInt(80);
+            int length = 1 + random.nextInt(80);
+            FarmAssert.assertMatchesFarm(new CompressedFarm(width, length), random, random.nextInt(25));
+        }
+    }
+
+    // a 1,000,000 x 1,000,000 farm split into 4 quadrants by a barren cross
+    @Test
+    public void HugeFarmTest() throws InvalidBoundaryException {
+        CompressedFarm hugeFarm = new CompressedFarm(1000000, 1000000);
+        hugeFarm.makeBarren(new Point(0,499999), new Point(999999,500000));
+        hugeFarm.makeBarren(new Point(499999,0), new Point(500000,999999));
+        long quadrant = 499999L * 499999L;
+        assertArrayEquals(new long[]{quadrant, quadrant, quadrant, quadrant}, hugeFarm.getFertileAreas());
+        // the areas do not fit in an int
+        assertThrows(ArithmeticException.class, () -> hugeFarm.getFertileLand());
+    }
+
+    // 30000 rectangles on distinct rows and columns cut both axes 60000
+    // times, more compressed cells than an int can count
+    @Test
+    public void ManyRectanglesTest() throws InvalidBoundaryException {
+        CompressedFarm manyFarm = new CompressedFarm(1000000, 1000000);
+        for (int k=0; k<30000; k++) {
+            // 2 x 2 squares, 30 apart along x and scattered along y
+            int x = 30*k + 10;
+            int y = 30*(k*7919 % 30000) + 10;
+            manyFarm.makeBarren(new Point(x, y), new Point(x + 1, y + 1));
+        }
+        assertArrayEquals(new long[]{1000000L * 1000000L - 4*30000}, manyFarm.getFertileAreas());
+        // a wall between squares 16666 and 16667 splits the farm in two
+        manyFarm.makeBarren(new Point(500005, 0), new Point(500005, 999999));
+        assertArrayEquals(new long[]{499994L * 1000000L - 4*13333, 500005L * 1000000L - 4*16667},
+                manyFarm.getFertileAreas());
+    }
+
+    @Test
+    public void LargestAreasTest() throws InvalidBoundaryException {
+        squareFarm.makeBarren(new Point(3,4), new Point(8,29));
+        squareFarm.makeBarren(new Point(0,25), new Point(16,16));
+        squareFarm.makeBarren(new Point(28,2), new Point(20,7));
+        squareFarm.makeBarren(new Point(29,6), new Point(7,10));
+        assertArrayEquals(new long[]{162, 319}, squareFarm.largestAreas(2));
+        assertArrayEquals(new long[]{12, 162, 319}, squareFarm.largestAreas(5));
+        assertArrayEquals(new long[]{319}, squareFarm.areasAtLeast(163));
+        assertArrayEquals(new long[0], squareFarm.largestAreas(0));
+    }
+
+    // areas that don't fit in an int, and ties with the smallest area kept
+    @Test
+    public void LargestAreasHugeFarmTest() throws InvalidBoundaryException {
+        CompressedFarm hugeFarm = new CompressedFarm(100000, 100000);
+        hugeFarm.makeBarren(new Point(50000, 0), new Point(50000, 99999));
+        assertArrayEquals(new long[]{5000000000L}, hugeFarm.largestAreas(1));
+        assertArrayEquals(new long[]{4999900000L, 5000000000L}, hugeFarm.largestAreas(3));
+        assertArrayEquals(new long[]{5000000000L}, hugeFarm.areasAtLeast(4999900001L));
+        assertArrayEquals(new long[0], hugeFarm.areasAtLeast(5000000001L));
+        // two equal halves: either one is the largest
+        hugeFarm.resetLand();
+        hugeFarm.makeBarren(new Point(0, 50000), new Point(99999, 50000));
+        hugeFarm.makeBarren(new Point(0, 49999), new Point(99999, 49999));
+        assertArrayEquals(new long[]{4999900000L}, hugeFarm.largestAreas(1));
+        assertArrayEquals(new long[]{4999900000L, 4999900000L}, hugeFarm.areasAtLeast(4999900000L));
+    }
+}
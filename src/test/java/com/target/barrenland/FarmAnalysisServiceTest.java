@@ -0,0 +1,126 @@
+package com.target.barrenland;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+public class FarmAnalysisServiceTest {
+
+    // many jobs of a few sizes must give the same results as analyzing each farm on its own
+    @Test
+    public void MatchesSequentialTest() throws InvalidBoundaryException, InterruptedException, ExecutionException {
+        Random random = new Random(5);
+        List<FarmJob> jobs = new ArrayList<>();
+        for (int j=0; j<200; j++) {
+            int width = 20 + 10 * random.nextInt(3);
+            int length = 30;
+            List<BarrenRectangle> rectangles = new ArrayList<>();
+            for (int r=random.nextInt(10); r>0; r--) {
+                rectangles.add(new BarrenRectangle(random.nextInt(width), random.nextInt(length),
+                        random.nextInt(width), random.nextInt(length)));
+            }
+            jobs.add(new FarmJob(width, length, rectangles));
+        }
+        List<CompletableFuture<List<Integer>>> results = new ArrayList<>();
+        try (FarmAnalysisService service = new FarmAnalysisService(3, 8, LandStorageType.INT)) {
+            for (FarmJob job : jobs) {
+                results.add(service.submit(job));
+            }
+            for (int j=0; j<jobs.size(); j++) {
+                Farm farm = new Farm(jobs.get(j).getWidth(), jobs.get(j).getLength());
+                for (BarrenRectangle rectangle : jobs.get(j).getRectangles()) {
+                    farm.makeBarren(rectangle.getBottomLeft(), rectangle.getTopRight());
+                }
+                assertEquals(farm.getFertileLand(), results.get(j).get());
+            }
+            // most jobs run on a reused farm, and the pool stays within its cap
+            assertTrue(service.getPool().getReused() > service.getPool().getCreated());
+            assertEquals(jobs.size(), service.getPool().getCreated() + service.getPool().getReused());
+            assertTrue(service.getPool().getIdle() <= 4 * 3);
+        }
+    }
+
+    @Test
+    public void InvalidJobTest() throws InterruptedException, ExecutionException {
+        try (FarmAnalysisService service = new FarmAnalysisService(1)) {
+            CompletableFuture<List<Integer>> offFarm = service.submit(new FarmJob(10, 10,
+                    Collections.singletonList(new BarrenRectangle(0, 0, 10, 10))));
+            CompletableFuture<List<Integer>> noFarm = service.submit(new FarmJob(0, 10, Collections.emptyList()));
+            ExecutionException exception = assertThrows(ExecutionException.class, offFarm::get);
+            assertTrue(exception.getCause() instanceof InvalidBoundaryException);
+            exception = assertThrows(ExecutionException.class, noFarm::get);
+            assertTrue(exception.getCause() instanceof InvalidBoundaryException);
+            // the failed job's farm went back to the pool all fertile
+            assertEquals(Arrays.asList(100), service.submit(new FarmJob(10, 10, Collections.emptyList())).get());
+            assertEquals(1, service.getPool().getReused());
+        }
+    }
+
+    @Test
+    public void FarmPoolTest() throws InvalidBoundaryException {
+        FarmPool pool = new FarmPool(LandStorageType.BITSET, 1, 2);
+        Farm first = pool.acquire(10, 20);
+        first.makeBarren(new Point(0, 0), new Point(9, 9));
+        pool.release(first);
+        Farm second = pool.acquire(10, 20);
+        assertTrue(first == second);
+        assertEquals(Arrays.asList(200), second.getFertileLand());
+        assertEquals(LandStorageType.BITSET, second.getStorageType());
+        // a different size gets its own farm
+        assertEquals(10, pool.acquire(20, 10).getLength());
+        assertEquals(2, pool.getCreated());
+        assertThrows(IllegalArgumentException.class, () -> new FarmPool(LandStorageType.INT, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new FarmPool(LandStorageType.INT, 2, 1));
+    }
+
+    // many different sizes share a few buckets, and the pool keeps
+    // the most recently released farms up to its caps
+    @Test
+    public void FarmPoolEvictionTest() throws InvalidBoundaryException {
+        assertEquals(0, FarmPool.sizeClass(1, 1));
+        assertEquals(10, FarmPool.sizeClass(20, 30));
+        assertEquals(10, FarmPool.sizeClass(32, 32));
+        assertEquals(11, FarmPool.sizeClass(33, 32));
+        assertEquals(31, FarmPool.sizeClass(Integer.MAX_VALUE - 8, 1));
+
+        FarmPool pool = new FarmPool(LandStorageType.INT, 2, 3);
+        Farm[] farms = {pool.acquire(1, 1), pool.acquire(2, 1), pool.acquire(4, 1), pool.acquire(8, 1)};
+        for (Farm farm : farms) {
+            pool.release(farm);
+        }
+        // the pool is full, so the farm idle the longest is gone
+        assertEquals(3, pool.getIdle());
+        assertEquals(1, pool.getEvicted());
+        assertTrue(farms[3] == pool.acquire(8, 1));
+        assertTrue(farms[0] != pool.acquire(1, 1));
+
+        // a full bucket evicts its own oldest farm, not another bucket's
+        pool = new FarmPool(LandStorageType.INT, 2, 3);
+        Farm small = pool.acquire(1, 1);
+        pool.release(small);
+        Farm[] sameClass = {pool.acquire(20, 30), pool.acquire(30, 30), pool.acquire(32, 32)};
+        for (Farm farm : sameClass) {
+            pool.release(farm);
+        }
+        assertEquals(3, pool.getIdle());
+        assertTrue(small == pool.acquire(1, 1));
+        assertTrue(sameClass[0] != pool.acquire(20, 30));
+        assertTrue(sameClass[2] == pool.acquire(32, 32));
+
+        // however many sizes pass through, the pool stays within its cap
+        for (int width=1; width<=1000; width++) {
+            pool.release(pool.acquire(width, 7));
+        }
+        assertEquals(3, pool.getIdle());
+    }
+}
@@ -0,0 +1,45 @@
+package com.target.barrenland;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import java.awt.*;
+import java.util.Random;
+
+/**
+ * Checks shared by the engine tests: every engine must find exactly the
+ * same fertile areas as the grid engine, Farm.
+ */
+final class FarmAssert {
+
+    private FarmAssert() {
+    }
+
+    /**
+     * Makes the same random rectangles barren on the engine and on a Farm
+     * of the same size, and checks that every way of asking for the
+     * fertile areas, including only the largest ones, gives the same answer. Every third rectangle is a
+     * single coordinate.
+     *
+     * @param engine: an empty farm of any engine
+     * @param random: source of the rectangles
+     * @param rectangles: number of rectangles to add
+     */
+    static void assertMatchesFarm(AbstractFarm engine, Random random, int rectangles) throws InvalidBoundaryException {
+        int width = engine.getWidth();
+        int length = engine.getLength();
+        Farm farm = new Farm(width, length);
+        for (int r=0; r<rectangles; r++) {
+            Point a = new Point(random.nextInt(width), random.nextInt(length));
+            Point b = r % 3 == 2 ? a : new Point(random.nextInt(width), random.nextInt(length));
+            farm.makeBarren(a, b);
+            engine.makeBarren(a, b);
+        }
+        assertEquals(farm.getFertileLand(), engine.getFertileLand());
+        assertArrayEquals(farm.getFertileAreas(), engine.getFertileAreas());
+        assertEquals(farm.getSortedAreas(), engine.getSortedAreas());
+        int k = 1 + random.nextInt(4);
+        long min = random.nextInt(100);
+        assertArrayEquals(farm.largestAreas(k), engine.largestAreas(k));
+        assertArrayEquals(farm.areasAtLeast(min), engine.areasAtLeast(min));
+    }
+}
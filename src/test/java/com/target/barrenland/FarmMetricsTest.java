@@ -0,0 +1,134 @@
+package com.target.barrenland;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import java.awt.*;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+public class FarmMetricsTest {
+
+    @Test
+    public void DisabledByDefaultTest() throws InvalidBoundaryException {
+        Farm farm = new Farm(10, 10);
+        assertNull(farm.getMetrics());
+        FarmMetrics metrics = farm.enableMetrics();
+        assertSame(metrics, farm.enableMetrics());
+        farm.disableMetrics();
+        assertNull(farm.getMetrics());
+        farm.getFertileLand();
+        assertEquals(0, metrics.getCellsScanned());
+    }
+
+    @Test
+    public void ProvidedCaseTest() throws InvalidBoundaryException {
+        Farm farm = new Farm(400, 600);
+        FarmMetrics metrics = farm.enableMetrics();
+        List<FarmPhase> phases = new ArrayList<>();
+        metrics.addListener((phase, nanos, m) -> {
+            assertTrue(nanos >= 0);
+            assertSame(metrics, m);
+            phases.add(phase);
+        });
+        farm.makeBarren(new Point(48,192), new Point(351, 207));
+        farm.makeBarren(new Point(48,392), new Point(351, 407));
+        farm.makeBarren(new Point(120,52), new Point(135, 547));
+        farm.makeBarren(new Point(260,52), new Point(275, 547));
+        assertEquals(Arrays.asList(22816, 192608), farm.getFertileLand());
+
+        assertEquals(Arrays.asList(FarmPhase.PAINT, FarmPhase.PAINT, FarmPhase.PAINT, FarmPhase.PAINT,
+                FarmPhase.SCAN, FarmPhase.FLOOD_FILL, FarmPhase.SORT), phases);
+        // every rectangle is counted in full, overlaps included
+        assertEquals(2 * 304 * 16 + 2 * 16 * 496, metrics.getCellsWritten());
+        assertEquals(400 * 600, metrics.getCellsScanned());
+        assertEquals(2, metrics.getRegions());
+        assertTrue(metrics.getMaxStackDepth() > 0);
+        assertTrue(metrics.getPaintNanos() > 0 && metrics.getScanNanos() > 0 && metrics.getFloodFillNanos() > 0);
+
+        metrics.reset();
+        assertEquals(0, metrics.getCellsWritten());
+        assertEquals(0, metrics.getPaintNanos());
+    }
+
+    // a batch writes each barren coordinate once, however much the rectangles overlap
+    @Test
+    public void BatchCellsWrittenTest() throws InvalidBoundaryException {
+        Farm farm = new Farm(30, 30);
+        FarmMetrics metrics = farm.enableMetrics();
+        farm.makeBarren(Arrays.asList(new BarrenRectangle(0, 0, 9, 9), new BarrenRectangle(5, 5, 14, 14)));
+        assertEquals(175, metrics.getCellsWritten());
+    }
+
+    // cutting an indexed farm keeps the region count up to date
+    @Test
+    public void IncrementalRegionsTest() throws InvalidBoundaryException {
+        Farm farm = new Farm(30, 30);
+        FarmMetrics metrics = farm.enableMetrics();
+        farm.getFertileLand();
+        assertEquals(1, metrics.getRegions());
+        farm.makeBarren(new Point(10, 0), new Point(10, 29));
+        assertEquals(2, metrics.getRegions());
+    }
+
+    // a scan for the largest areas that stops early counts only what it looked at
+    @Test
+    public void LargestAreasTest() throws InvalidBoundaryException {
+        Farm farm = new Farm(30, 30);
+        FarmMetrics metrics = farm.enableMetrics();
+        farm.makeBarren(new Point(10, 0), new Point(10, 29));
+        List<FarmPhase> phases = new ArrayList<>();
+        metrics.addListener((phase, nanos, m) -> phases.add(phase));
+        assertArrayEquals(new long[]{570}, farm.largestAreas(1));
+        assertEquals(Arrays.asList(FarmPhase.SCAN, FarmPhase.FLOOD_FILL, FarmPhase.SORT), phases);
+        // the second region starts at 330 and no later region can beat its 570
+        assertEquals(331, metrics.getCellsScanned());
+        assertEquals(2, metrics.getRegions());
+        assertTrue(metrics.getFloodFillNanos() > 0);
+    }
+
+    // removing a rectangle counts only the coordinates it really frees
+    @Test
+    public void RemoveBarrenTest() throws InvalidBoundaryException {
+        Farm farm = new Farm(30, 30);
+        FarmMetrics metrics = farm.enableMetrics();
+        farm.addBarren(new Point(10, 0), new Point(10, 29));
+        int id = farm.addBarren(new Point(0, 10), new Point(29, 10));
+        farm.getFertileLand();
+        assertEquals(4, metrics.getRegions());
+        long written = metrics.getCellsWritten();
+        long paint = metrics.getPaintNanos();
+        farm.removeBarren(id);
+        // the coordinate at (10,10) stays barren under the other rectangle
+        assertEquals(written + 29, metrics.getCellsWritten());
+        assertTrue(metrics.getPaintNanos() > paint);
+        assertEquals(2, metrics.getRegions());
+    }
+
+    @Test
+    public void JmxTest() throws InvalidBoundaryException, JMException {
+        Farm farm = new Farm(15, 10);
+        FarmMetrics metrics = farm.enableMetrics();
+        farm.makeBarren(new Point(0, 5), new Point(14, 5));
+        farm.getFertileLand();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = metrics.register("test farm");
+        try {
+            assertEquals(2, server.getAttribute(name, "Regions"));
+            assertEquals(150L, server.getAttribute(name, "CellsScanned"));
+        } finally {
+            metrics.unregister();
+        }
+        assertFalse(server.isRegistered(name));
+    }
+}
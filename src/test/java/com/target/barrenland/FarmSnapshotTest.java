@@ -0,0 +1,185 @@
+package com.target.barrenland;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+import java.awt.*;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+public class FarmSnapshotTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Farm randomFarm(Random random) throws InvalidBoundaryException {
+        Farm farm = new Farm(1 + random.nextInt(40), 1 + random.nextInt(40));
+        for (int r=random.nextInt(15); r>0; r--) {
+            farm.makeBarren(new Point(random.nextInt(farm.getWidth()), random.nextInt(farm.getLength())),
+                    new Point(random.nextInt(farm.getWidth()), random.nextInt(farm.getLength())));
+        }
+        return farm;
+    }
+
+    @Test
+    public void MaskRoundTripTest() throws Exception {
+        Random random = new Random(3);
+        Path path = folder.newFile().toPath();
+        for (int round=0; round<30; round++) {
+            Farm farm = randomFarm(random);
+            farm.save(path, false);
+            Farm loaded = Farm.load(path, round % 2 == 0 ? LandStorageType.INT : LandStorageType.BITSET);
+            assertEquals(farm.getWidth(), loaded.getWidth());
+            assertEquals(farm.getBarrenRectangles(), loaded.getBarrenRectangles());
+            assertEquals(farm.getFertileLand(), loaded.getFertileLand());
+            for (int i=0; i<farm.getWidth(); i++) {
+                for (int j=0; j<farm.getLength(); j++) {
+                    assertEquals(farm.getLand()[i][j] == -1, loaded.getLand()[i][j] == -1);
+                }
+            }
+        }
+    }
+
+    // a farm saved with its labels is indexed as soon as it is loaded
+    @Test
+    public void LabelsRoundTripTest() throws Exception {
+        Random random = new Random(4);
+        Path path = folder.newFile().toPath();
+        for (int round=0; round<30; round++) {
+            Farm farm = randomFarm(random);
+            farm.getFertileLand();
+            // cut it, so some labels are no longer in row-major order and some are unused
+            farm.makeBarren(new Point(farm.getWidth() / 2, 0), new Point(farm.getWidth() / 2, farm.getLength() - 1));
+            farm.save(path, true);
+            Farm loaded = Farm.load(path);
+            for (int i=0; i<farm.getWidth(); i++) {
+                assertArrayEquals(farm.getLand()[i], loaded.getLand()[i]);
+            }
+            assertEquals(farm.getFertileLand(), loaded.getFertileLand());
+            int region = loaded.getRegion(0, 0);
+            if (region > 0) {
+                assertEquals(farm.getRegionArea(region), loaded.getRegionArea(region));
+                assertEquals(farm.getRegionArea(region), loaded.getRegionRuns(region).mapToInt(FertileRun::length).sum());
+            }
+        }
+    }
+
+    // the restored rectangles can be removed, and new ones get fresh ids
+    @Test
+    public void RestoredRectanglesTest() throws Exception {
+        Farm farm = new Farm(400, 600);
+        int id = farm.addBarren(new Point(0,292), new Point(399, 307));
+        farm.makeBarren(new Point(48,192), new Point(351, 207));
+        Path path = folder.newFile().toPath();
+        farm.save(path, true);
+        Farm loaded = Farm.load(path);
+        assertEquals(Arrays.asList(111936, 116800), loaded.getFertileLand());
+        loaded.removeBarren(id);
+        assertEquals(Arrays.asList(235136), loaded.getFertileLand());
+        assertEquals(id + 2, loaded.addBarren(new Point(0, 0), new Point(0, 0)));
+    }
+
+    @Test
+    public void InvalidSnapshotTest() throws Exception {
+        Path path = folder.newFile().toPath();
+        Files.write(path, "not a snapshot at all".getBytes());
+        IOException exception = assertThrows(IOException.class, () -> Farm.load(path));
+        assertTrue(exception.getMessage().contains("Not a farm snapshot."));
+
+        Farm farm = new Farm(30, 30);
+        farm.makeBarren(new Point(3, 4), new Point(8, 29));
+        farm.save(path, true);
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 3));
+        exception = assertThrows(IOException.class, () -> Farm.load(path));
+        assertTrue(exception.getMessage().contains("truncated"));
+    }
+
+    // a corrupt file fails with an IOException before anything large is allocated
+    @Test
+    public void CorruptSnapshotTest() throws Exception {
+        Path path = folder.newFile().toPath();
+        // 30000 x 30000 promises a huge land matrix in 24 bytes
+        Files.write(path, snapshot(30000, 30000, 0, 0, 0));
+        IOException exception = assertThrows(IOException.class, () -> Farm.load(path));
+        assertTrue(exception.getMessage().contains("rows don't fit"));
+
+        // a count of Integer.MAX_VALUE regions
+        byte[] regions = snapshot(1, 1, 0, 0, 0xFF, 0xFF, 0xFF, 0xFF, 0x07, 1, 1, 1);
+        regions[11] = 1; // labels
+        Files.write(path, regions);
+        exception = assertThrows(IOException.class, () -> Farm.load(path));
+        assertTrue(exception.getMessage().contains("regions don't fit"));
+
+        // a number with more than 31 bits
+        Files.write(path, snapshot(1, 1, 0, 0xFF, 0xFF, 0xFF, 0xFF, 0x7F, 1, 1));
+        exception = assertThrows(IOException.class, () -> Farm.load(path));
+        assertTrue(exception.getMessage().contains("bad number"));
+
+        // a rectangle outside the farm
+        Files.write(path, snapshot(2, 2, 1, 1, 0, 0, 0, 5, 0, 1, 2, 1, 2));
+        exception = assertThrows(IOException.class, () -> Farm.load(path));
+        assertTrue(exception.getMessage().contains("bad rectangle"));
+
+        // a label that has no region
+        byte[] label = snapshot(1, 2, 0, 0, 1, 2, 1, 2, 9);
+        label[11] = 1;
+        Files.write(path, label);
+        exception = assertThrows(IOException.class, () -> Farm.load(path));
+        assertTrue(exception.getMessage().contains("unknown label"));
+
+        // one row of Integer.MAX_VALUE - 8 coordinates whose runs stop at
+        // 1000, found before the land matrix is allocated
+        Files.write(path, snapshot(1, Integer.MAX_VALUE - 8, 0, 0, 1, 0xE8, 0x07));
+        exception = assertThrows(IOException.class, () -> Farm.load(path));
+        assertTrue(exception.getMessage().contains("row 0 is too short"));
+
+        // region 1 claims 5 coordinates, but only 2 carry its label
+        byte[] area = snapshot(1, 2, 0, 0, 1, 5, 1, 2, 1);
+        area[11] = 1;
+        Files.write(path, area);
+        exception = assertThrows(IOException.class, () -> Farm.load(path));
+        assertTrue(exception.getMessage().contains("Corrupt snapshot: region 1 has area 5 but 2 coordinates"));
+    }
+
+    /**
+     * Builds a snapshot without labels by hand.
+     *
+     * @param body: the bytes after the header, each below 256
+     */
+    private static byte[] snapshot(int width, int length, int... body) {
+        ByteBuffer buffer = ByteBuffer.allocate(20 + body.length);
+        buffer.putInt(0x424C4653).putInt(1).putInt(0).putInt(width).putInt(length);
+        for (int b : body) {
+            buffer.put((byte) b);
+        }
+        return buffer.array();
+    }
+
+    // a 4000 x 4000 farm of 2000 rectangles takes far less than a bit per
+    // coordinate and loads back to the same farm
+    @Test
+    public void LargeFarmTest() throws Exception {
+        Random random = new Random(8);
+        Farm farm = new Farm(4000, 4000);
+        for (int r=0; r<2000; r++) {
+            int x = random.nextInt(4000);
+            int y = random.nextInt(4000);
+            farm.makeBarren(new Point(x, y), new Point(Math.min(3999, x + random.nextInt(200)), Math.min(3999, y + 5)));
+        }
+        Path path = folder.newFile().toPath();
+        farm.save(path, true);
+        assertTrue(Files.size(path) < 4000L * 4000 / 8);
+        Farm loaded = Farm.load(path);
+        assertEquals(farm.getFertileLand(), loaded.getFertileLand());
+    }
+}
@@ -3,12 +3,20 @@ package com.target.barrenland;
 import org.junit.Before;
 import org.junit.Test;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 import java.awt.*;
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 public class FarmTest {
 
@@ -271,4 +279,679 @@ public class FarmTest {
         bigFarm.makeBarren(new Point(260,52), new Point(275, 547));
         assertEquals(bigFarm.getFertileLand(), Arrays.asList(22816, 192608));
     }
+
+    // getFertileLand() should not allocate per visited coordinate. Once the
+    // reusable stack has grown, the allocation of a call stays flat no matter
+    // how big the farm is (400 x 600 used to create ~240k Points).
+    @Test
+    public void GetFertileLandAllocationTest() throws InvalidBoundaryException {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long small = allocatedByAnalysis(threads, squareFarm);
+        long big = allocatedByAnalysis(threads, bigFarm);
+        assertTrue("allocated " + big + " bytes", big < small + 16 * 1024);
+    }
+
+    private long allocatedByAnalysis(com.sun.management.ThreadMXBean threads, Farm farm) throws InvalidBoundaryException {
+        farm.makeBarren(new Point(0,5), new Point(farm.getWidth()-1, 6));
+        // warm up, growing the stack to its final size
+        farm.getFertileLand();
+        farm.resetLand();
+        farm.makeBarren(new Point(0,5), new Point(farm.getWidth()-1, 6));
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        farm.getFertileLand();
+        return threads.getThreadAllocatedBytes(threadId) - before;
+    }
+
+    // asking again without changing the land gives the same list without
+    // allocating, and every change to the land gives a fresh one
+    @Test
+    public void RepeatedFertileLandTest() throws InvalidBoundaryException {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        int modCount = bigFarm.getModCount();
+        bigFarm.makeBarren(new Point(0,292), new Point(399, 307));
+        assertTrue(bigFarm.getModCount() > modCount);
+        List<Integer> first = bigFarm.getFertileLand();
+        assertEquals(Arrays.asList(116800, 116800), first);
+        assertThrows(UnsupportedOperationException.class, () -> first.add(1));
+
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        List<Integer> second = bigFarm.getFertileLand();
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+        assertTrue(first == second);
+        assertTrue("allocated " + allocated + " bytes", allocated < 1024);
+
+        modCount = bigFarm.getModCount();
+        int id = bigFarm.addBarren(new Point(0,0), new Point(399, 0));
+        assertEquals(modCount + 1, bigFarm.getModCount());
+        List<Integer> cut = bigFarm.getFertileLand();
+        assertEquals(Arrays.asList(116400, 116800), cut);
+        assertEquals(Arrays.asList(116800, 116800), first);
+        bigFarm.removeBarren(id);
+        assertEquals(first, bigFarm.getFertileLand());
+        assertEquals(modCount + 2, bigFarm.getModCount());
+        bigFarm.resetLand();
+        assertEquals(modCount + 3, bigFarm.getModCount());
+        assertEquals(Arrays.asList(240000), bigFarm.getFertileLand());
+    }
+
+    // every storage type should store the same land matrix and find the same areas
+    @Test
+    public void StorageTypesTest() throws InvalidBoundaryException {
+        for (LandStorageType type : LandStorageType.values()) {
+            Farm farm = new Farm(30, 30, type);
+            assertEquals(type, farm.getStorageType());
+            farm.makeBarren(new Point(3,4), new Point(8,29));
+            farm.makeBarren(new Point(0,25), new Point(16,16));
+            farm.makeBarren(new Point(28,2), new Point(20,7));
+            farm.makeBarren(new Point(29,6), new Point(7,10));
+            assertEquals(Arrays.asList(12, 162, 319), farm.getFertileLand());
+            squareFarm.resetLand();
+            squareFarm.makeBarren(new Point(3,4), new Point(8,29));
+            squareFarm.makeBarren(new Point(0,25), new Point(16,16));
+            squareFarm.makeBarren(new Point(28,2), new Point(20,7));
+            squareFarm.makeBarren(new Point(29,6), new Point(7,10));
+            squareFarm.getFertileLand();
+            for (int i=0; i<30; i++) {
+                assertArrayEquals(squareFarm.getLand()[i], farm.getLand()[i]);
+            }
+            // resetting keeps the storage but makes it all fertile
+            farm.resetLand();
+            assertEquals(Arrays.asList(900), farm.getFertileLand());
+        }
+    }
+
+    // the bitset mask is 32x smaller than an int per cell, the byte mask 4x
+    @Test
+    public void StorageMaskSizeTest() {
+        int cells = 400 * 600;
+        assertEquals(4L * cells, LandStorageType.INT.create(cells).maskBytes());
+        assertEquals(cells, LandStorageType.BYTE.create(cells).maskBytes());
+        assertEquals(cells / 8, LandStorageType.BITSET.create(cells).maskBytes());
+        // an untouched paged storage shares the empty page
+        assertEquals(0, LandStorageType.PAGED.create(cells).maskBytes());
+    }
+
+    // bit ranges that start and end inside and across words
+    @Test
+    public void BitsetSetBarrenTest() {
+        Random random = new Random(7);
+        for (int round=0; round<200; round++) {
+            LandStorage bits = LandStorageType.BITSET.create(300);
+            LandStorage ints = LandStorageType.INT.create(300);
+            for (int r=0; r<3; r++) {
+                int from = random.nextInt(300);
+                int to = from + random.nextInt(301 - from);
+                bits.setBarren(from, to);
+                ints.setBarren(from, to);
+            }
+            for (int c=0; c<300; c++) {
+                assertEquals(ints.get(c), bits.get(c));
+            }
+        }
+    }
+
+    // the two-pass labeling should leave the same labels and areas as the flood fill
+    @Test
+    public void TwoPassLabelingTest() throws InvalidBoundaryException {
+        Random random = new Random(11);
+        for (int round=0; round<50; round++) {
+            int width = 1 + random.nextInt(60);
+            int length = 1 + random.nextInt(60);
+            Farm floodFill = new Farm(width, length);
+            Farm twoPass = new Farm(width, length, LandStorageType.values()[round % LandStorageType.values().length]);
+            twoPass.setLabelingMode(LabelingMode.TWO_PASS);
+            int rectangles = random.nextInt(30);
+            for (int r=0; r<rectangles; r++) {
+                Point a = new Point(random.nextInt(width), random.nextInt(length));
+                Point b = new Point(random.nextInt(width), random.nextInt(length));
+                floodFill.makeBarren(a, b);
+                twoPass.makeBarren(a, b);
+            }
+            assertEquals(floodFill.getFertileLand(), twoPass.getFertileLand());
+            for (int i=0; i<width; i++) {
+                assertArrayEquals(floodFill.getLand()[i], twoPass.getLand()[i]);
+            }
+        }
+        // provided case on the full sized farm
+        bigFarm.setLabelingMode(LabelingMode.TWO_PASS);
+        bigFarm.makeBarren(new Point(48,192), new Point(351, 207));
+        bigFarm.makeBarren(new Point(48,392), new Point(351, 407));
+        bigFarm.makeBarren(new Point(120,52), new Point(135, 547));
+        bigFarm.makeBarren(new Point(260,52), new Point(275, 547));
+        assertEquals(Arrays.asList(22816, 192608), bigFarm.getFertileLand());
+    }
+
+    // the word-level labeling should leave the same labels and areas as the flood fill,
+    // including on rows that span several words and on rows that don't start on a word
+    @Test
+    public void WordRunLabelingTest() throws InvalidBoundaryException {
+        Random random = new Random(19);
+        for (int round=0; round<60; round++) {
+            int width = 1 + random.nextInt(40);
+            int length = 1 + random.nextInt(200);
+            Farm floodFill = new Farm(width, length);
+            Farm wordRuns = new Farm(width, length, LandStorageType.values()[round % LandStorageType.values().length]);
+            wordRuns.setLabelingMode(LabelingMode.WORD_RUNS);
+            int rectangles = random.nextInt(40);
+            for (int r=0; r<rectangles; r++) {
+                Point a = new Point(random.nextInt(width), random.nextInt(length));
+                Point b = new Point(random.nextInt(width), random.nextInt(length));
+                floodFill.makeBarren(a, b);
+                wordRuns.makeBarren(a, b);
+            }
+            // a few single cells, so that runs start and end on every bit
+            for (int c=random.nextInt(width * length / 4 + 1); c>0; c--) {
+                Point a = new Point(random.nextInt(width), random.nextInt(length));
+                floodFill.makeBarren(a, a);
+                wordRuns.makeBarren(a, a);
+            }
+            assertEquals(floodFill.getFertileLand(), wordRuns.getFertileLand());
+            for (int i=0; i<width; i++) {
+                assertArrayEquals(floodFill.getLand()[i], wordRuns.getLand()[i]);
+            }
+            // labeling again reuses the labeler's tables
+            wordRuns.resetLand();
+            floodFill.resetLand();
+            Point corner = new Point(width / 2, length / 2);
+            floodFill.makeBarren(new Point(0, 0), corner);
+            wordRuns.makeBarren(new Point(0, 0), corner);
+            assertEquals(floodFill.getFertileLand(), wordRuns.getFertileLand());
+        }
+        // provided case on the full sized farm
+        Farm farm = new Farm(400, 600, LandStorageType.BITSET);
+        farm.setLabelingMode(LabelingMode.WORD_RUNS);
+        farm.makeBarren(new Point(48,192), new Point(351, 207));
+        farm.makeBarren(new Point(48,392), new Point(351, 407));
+        farm.makeBarren(new Point(120,52), new Point(135, 547));
+        farm.makeBarren(new Point(260,52), new Point(275, 547));
+        assertEquals(Arrays.asList(22816, 192608), farm.getFertileLand());
+    }
+
+    // the parallel labeling should leave the same labels and areas as the flood fill,
+    // including when regions wind across many tile borders
+    @Test
+    public void ParallelLabelingTest() throws InvalidBoundaryException {
+        Random random = new Random(13);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        for (int round=0; round<50; round++) {
+            int width = 1 + random.nextInt(60);
+            int length = 1 + random.nextInt(60);
+            Farm floodFill = new Farm(width, length);
+            Farm tiled = new Farm(width, length, LandStorageType.values()[round % LandStorageType.values().length]);
+            int rectangles = random.nextInt(30);
+            for (int r=0; r<rectangles; r++) {
+                Point a = new Point(random.nextInt(width), random.nextInt(length));
+                Point b = new Point(random.nextInt(width), random.nextInt(length));
+                floodFill.makeBarren(a, b);
+                tiled.makeBarren(a, b);
+            }
+            List<Integer> expected = floodFill.getFertileLand();
+            // tiny tiles so that most regions cross a border
+            IntStack areas = new IntStack();
+            new ParallelLabeler(1 + round % 7).label(tiled.getStorage(), width, length, areas, pool);
+            areas.sort();
+            assertEquals(expected.size(), areas.size());
+            for (int a=0; a<areas.size(); a++) {
+                assertEquals((int) expected.get(a), areas.get(a));
+            }
+            for (int i=0; i<width; i++) {
+                assertArrayEquals(floodFill.getLand()[i], tiled.getLand()[i]);
+            }
+        }
+        pool.shutdown();
+
+        bigFarm.setLabelingMode(LabelingMode.PARALLEL);
+        bigFarm.setParallelism(3);
+        assertEquals(3, bigFarm.getParallelism());
+        bigFarm.makeBarren(new Point(48,192), new Point(351, 207));
+        bigFarm.makeBarren(new Point(48,392), new Point(351, 407));
+        bigFarm.makeBarren(new Point(120,52), new Point(135, 547));
+        bigFarm.makeBarren(new Point(260,52), new Point(275, 547));
+        assertEquals(Arrays.asList(22816, 192608), bigFarm.getFertileLand());
+        // changing the parallelism replaces the farm's own pool, which keeps working
+        bigFarm.setParallelism(2);
+        assertEquals(2, bigFarm.getParallelism());
+        bigFarm.resetLand();
+        bigFarm.makeBarren(new Point(0,292), new Point(399, 307));
+        assertEquals(Arrays.asList(116800, 116800), bigFarm.getFertileLand());
+    }
+
+    // adding rectangles one at a time after an analysis should give the same
+    // areas as analyzing from scratch, and asking twice gives the same answer
+    @Test
+    public void IncrementalMakeBarrenTest() throws InvalidBoundaryException {
+        Random random = new Random(17);
+        for (int round=0; round<30; round++) {
+            int width = 1 + random.nextInt(50);
+            int length = 1 + random.nextInt(50);
+            Farm incremental = new Farm(width, length, LandStorageType.values()[round % LandStorageType.values().length]);
+            CompressedFarm reference = new CompressedFarm(width, length);
+            assertEquals(reference.getFertileLand(), incremental.getFertileLand());
+            for (int r=0; r<15; r++) {
+                Point a = new Point(random.nextInt(width), random.nextInt(length));
+                Point b = new Point(random.nextInt(width), random.nextInt(length));
+                incremental.makeBarren(a, b);
+                reference.makeBarren(a, b);
+                assertEquals(reference.getFertileLand(), incremental.getFertileLand());
+                assertEquals(reference.getFertileLand(), incremental.getFertileLand());
+            }
+        }
+    }
+
+    // cutting a region must only relabel that region
+    @Test
+    public void IncrementalMakeBarrenLabelsTest() throws InvalidBoundaryException {
+        squareFarm.makeBarren(new Point(10,0), new Point(10,29));
+        assertEquals(Arrays.asList(300, 570), squareFarm.getFertileLand());
+        // split the right side (label 2) in two; the left side keeps label 1
+        squareFarm.makeBarren(new Point(11,15), new Point(29,15));
+        assertEquals(Arrays.asList(266, 285, 300), squareFarm.getFertileLand());
+        assertEquals(1, squareFarm.getLand()[0][0]);
+        assertEquals(3, squareFarm.getLand()[29][0]);
+        assertEquals(4, squareFarm.getLand()[29][29]);
+        // after a reset, labels start over
+        squareFarm.resetLand();
+        assertEquals(Arrays.asList(900), squareFarm.getFertileLand());
+        assertEquals(1, squareFarm.getLand()[29][29]);
+    }
+
+    // removing a rectangle keeps coordinates other rectangles cover barren
+    @Test
+    public void RemoveBarrenTest() throws InvalidBoundaryException {
+        int first = squareFarm.addBarren(new Point(10,0), new Point(10,29));
+        int second = squareFarm.addBarren(new Point(5,10), new Point(15,10));
+        assertEquals(2, squareFarm.getBarrenRectangles().size());
+        squareFarm.removeBarren(first);
+        // (10,10) is still covered by the second rectangle
+        assertEquals(-1, squareFarm.getLand()[10][10]);
+        assertEquals(0, squareFarm.getLand()[10][0]);
+        assertEquals(Arrays.asList(889), squareFarm.getFertileLand());
+        squareFarm.removeBarren(second);
+        assertEquals(Arrays.asList(900), squareFarm.getFertileLand());
+        assertThrows(IllegalArgumentException.class, () -> squareFarm.removeBarren(second));
+    }
+
+    // adding and removing rectangles after an analysis should give the same
+    // areas as analyzing the remaining rectangles from scratch
+    @Test
+    public void RemoveBarrenReconnectTest() throws InvalidBoundaryException {
+        Random random = new Random(19);
+        for (int round=0; round<30; round++) {
+            int width = 1 + random.nextInt(40);
+            int length = 1 + random.nextInt(40);
+            Farm farm = new Farm(width, length, LandStorageType.values()[round % LandStorageType.values().length]);
+            List<Integer> ids = new ArrayList<>();
+            farm.getFertileLand();
+            for (int step=0; step<40; step++) {
+                if (ids.isEmpty() || random.nextInt(3) > 0) {
+                    Point a = new Point(random.nextInt(width), random.nextInt(length));
+                    Point b = new Point(random.nextInt(width), random.nextInt(length));
+                    ids.add(farm.addBarren(a, b));
+                } else {
+                    farm.removeBarren(ids.remove(random.nextInt(ids.size())));
+                }
+                CompressedFarm reference = new CompressedFarm(width, length);
+                for (BarrenRectangle rectangle : farm.getBarrenRectangles().values()) {
+                    reference.makeBarren(rectangle.getBottomLeft(), rectangle.getTopRight());
+                }
+                assertEquals(reference.getFertileLand(), farm.getFertileLand());
+            }
+        }
+    }
+
+    // labels of regions that are gone are reused, so toggling rectangles
+    // on an indexed farm keeps the index small and every label consistent
+    @Test
+    public void ToggleReusesLabelsTest() throws InvalidBoundaryException {
+        Random random = new Random(53);
+        Farm farm = new Farm(30, 40);
+        farm.makeBarren(new Point(0, 20), new Point(29, 20));
+        farm.getFertileLand();
+        for (int step=0; step<1000; step++) {
+            // cut and reconnect both halves
+            int wall = farm.addBarren(new Point(15, 0), new Point(15, 39));
+            int spot = farm.addBarren(new Point(random.nextInt(30), random.nextInt(40)), new Point(random.nextInt(30), random.nextInt(40)));
+            if (step % 50 == 0) {
+                assertLabelsMatchAreas(farm);
+            }
+            farm.removeBarren(wall);
+            farm.removeBarren(spot);
+        }
+        assertEquals(Arrays.asList(570, 600), farm.getFertileLand());
+        assertLabelsMatchAreas(farm);
+        assertTrue(farm.getRegionAreas().size() < 20);
+    }
+
+    /**
+     * Checks that every label on the land is counted by getRegionArea()
+     * and that its runs cover all of it.
+     */
+    private static void assertLabelsMatchAreas(Farm farm) {
+        int[][] land = farm.getLand();
+        Map<Integer, Integer> counts = new HashMap<>();
+        for (int[] row : land) {
+            for (int label : row) {
+                if (label > 0) {
+                    counts.merge(label, 1, Integer::sum);
+                }
+            }
+        }
+        for (Map.Entry<Integer, Integer> entry : counts.entrySet()) {
+            assertEquals((int) entry.getValue(), farm.getRegionArea(entry.getKey()));
+            assertEquals((int) entry.getValue(), farm.getRegionRuns(entry.getKey()).mapToInt(FertileRun::length).sum());
+        }
+        assertEquals(counts.size(), farm.getFertileLand().size());
+    }
+
+    // a batch of overlapping rectangles should paint the same land as
+    // adding them one at a time
+    @Test
+    public void MakeBarrenBatchTest() throws InvalidBoundaryException {
+        Random random = new Random(23);
+        for (int round=0; round<30; round++) {
+            int width = 1 + random.nextInt(50);
+            int length = 1 + random.nextInt(50);
+            Farm oneByOne = new Farm(width, length);
+            Farm batch = new Farm(width, length, LandStorageType.values()[round % LandStorageType.values().length]);
+            List<BarrenRectangle> rectangles = new ArrayList<>();
+            for (int r=random.nextInt(40); r>0; r--) {
+                Point a = new Point(random.nextInt(width), random.nextInt(length));
+                Point b = new Point(random.nextInt(width), random.nextInt(length));
+                oneByOne.makeBarren(a, b);
+                rectangles.add(new BarrenRectangle(a, b));
+            }
+            batch.getFertileLand();
+            batch.makeBarren(rectangles);
+            assertEquals(rectangles.size(), batch.getBarrenRectangles().size());
+            for (int i=0; i<width; i++) {
+                for (int j=0; j<length; j++) {
+                    assertEquals(oneByOne.getLand()[i][j] == -1, batch.getLand()[i][j] == -1);
+                }
+            }
+            assertEquals(oneByOne.getFertileLand(), batch.getFertileLand());
+        }
+    }
+
+    // the whole batch is checked before anything is painted
+    @Test
+    public void MakeBarrenBatchInvalidBoundariesTest() {
+        List<BarrenRectangle> rectangles = Arrays.asList(
+                new BarrenRectangle(0, 0, 3, 3),
+                new BarrenRectangle(2, 2, 15, 4));
+        Exception exception = assertThrows(InvalidBoundaryException.class, () -> smallFarm.makeBarren(rectangles));
+        assertTrue(exception.getMessage().contains("Barren land coordinates must be in land matrix."));
+        assertEquals(0, smallFarm.getLand()[0][0]);
+        assertTrue(smallFarm.getBarrenRectangles().isEmpty());
+    }
+
+    // every coordinate's region and area agree with the land matrix, and
+    // streaming a region gives back exactly its coordinates, in every labeling mode
+    @Test
+    public void RegionLookupTest() throws InvalidBoundaryException {
+        Random random = new Random(17);
+        for (LabelingMode mode : LabelingMode.values()) {
+            for (int round=0; round<10; round++) {
+                Farm farm = new Farm(1 + random.nextInt(30), 1 + random.nextInt(30));
+                farm.setLabelingMode(mode);
+                for (int r=random.nextInt(12); r>0; r--) {
+                    farm.makeBarren(new Point(random.nextInt(farm.getWidth()), random.nextInt(farm.getLength())),
+                            new Point(random.nextInt(farm.getWidth()), random.nextInt(farm.getLength())));
+                }
+                if (round % 2 == 1) {
+                    // cut the indexed farm, so some labels come from re-labeling
+                    farm.getFertileLand();
+                    farm.makeBarren(new Point(farm.getWidth() / 2, 0), new Point(farm.getWidth() / 2, farm.getLength() / 2));
+                }
+                List<Integer> expected = farm.getFertileLand();
+                int[][] land = farm.getLand();
+                List<Integer> areas = new ArrayList<>();
+                for (int i=0; i<farm.getWidth(); i++) {
+                    for (int j=0; j<farm.getLength(); j++) {
+                        int region = farm.getRegion(i, j);
+                        assertEquals(land[i][j], region);
+                        if (region > 0 && farm.getRegionPoints(region).findFirst().get().equals(new Point(i, j))) {
+                            int area = farm.getRegionArea(region);
+                            areas.add(area);
+                            assertEquals(area, farm.getRegionRuns(region).mapToInt(FertileRun::length).sum());
+                            assertTrue(farm.getRegionPoints(region).allMatch(p -> land[p.x][p.y] == region));
+                        }
+                    }
+                }
+                Collections.sort(areas);
+                assertEquals(expected, areas);
+            }
+        }
+    }
+
+    @Test
+    public void RegionLookupInvalidTest() throws InvalidBoundaryException {
+        smallFarm.makeBarren(new Point(0, 5), new Point(14, 5));
+        assertEquals(-1, smallFarm.getRegion(new Point(3, 5)));
+        assertEquals(75, smallFarm.getRegionArea(smallFarm.getRegion(0, 0)));
+        assertThrows(InvalidBoundaryException.class, () -> smallFarm.getRegion(15, 0));
+        assertThrows(IllegalArgumentException.class, () -> smallFarm.getRegionArea(3));
+        assertThrows(IllegalArgumentException.class, () -> smallFarm.getRegionRuns(-1));
+    }
+
+    // top-k and threshold queries agree with getFertileLand(), whether they
+    // scan the farm or answer from the index
+    @Test
+    public void LargestAreasTest() throws InvalidBoundaryException {
+        Random random = new Random(23);
+        for (int round=0; round<40; round++) {
+            Farm farm = new Farm(1 + random.nextInt(40), 1 + random.nextInt(40));
+            farm.setLabelingMode(round % 4 == 3 ? LabelingMode.TWO_PASS : LabelingMode.FLOOD_FILL);
+            for (int r=random.nextInt(15); r>0; r--) {
+                farm.makeBarren(new Point(random.nextInt(farm.getWidth()), random.nextInt(farm.getLength())),
+                        new Point(random.nextInt(farm.getWidth()), random.nextInt(farm.getLength())));
+            }
+            int k = random.nextInt(5);
+            int min = random.nextInt(50);
+            long[] largest = farm.largestAreas(k);
+            long[] atLeast = farm.areasAtLeast(min);
+            List<Integer> areas = farm.getFertileLand();
+            List<Integer> expectedLargest = areas.subList(Math.max(0, areas.size() - k), areas.size());
+            List<Integer> expectedAtLeast = new ArrayList<>();
+            for (int area : areas) {
+                if (area >= min) {
+                    expectedAtLeast.add(area);
+                }
+            }
+            assertArrayEquals(expectedLargest.stream().mapToLong(Integer::longValue).toArray(), largest);
+            assertArrayEquals(expectedAtLeast.stream().mapToLong(Integer::longValue).toArray(), atLeast);
+            // the farm is indexed now
+            assertArrayEquals(largest, farm.largestAreas(k));
+            assertArrayEquals(atLeast, farm.areasAtLeast(min));
+        }
+    }
+
+    // once the largest region is found, the tiny regions after it are never visited
+    @Test
+    public void LargestAreasEarlyTerminationTest() throws InvalidBoundaryException {
+        // rows 0-19 are one region, the last row is split into 1x1 regions
+        Farm farm = new Farm(22, 20);
+        farm.makeBarren(new Point(20, 0), new Point(20, 19));
+        for (int j=1; j<20; j+=2) {
+            farm.makeBarren(new Point(21, j), new Point(21, j));
+        }
+        assertArrayEquals(new long[]{400}, farm.largestAreas(1));
+        assertEquals(0, farm.getLand()[21][0]);
+        assertArrayEquals(new long[]{400}, farm.areasAtLeast(21));
+        assertEquals(0, farm.getLand()[21][0]);
+        assertArrayEquals(new long[]{1, 400}, farm.largestAreas(2));
+        assertThrows(IllegalArgumentException.class, () -> farm.largestAreas(-1));
+    }
+
+    // statistics collected during labeling match a brute force pass over the labels
+    @Test
+    public void RegionStatisticsTest() throws InvalidBoundaryException {
+        Random random = new Random(29);
+        for (int round=0; round<30; round++) {
+            Farm farm = new Farm(1 + random.nextInt(25), 1 + random.nextInt(25));
+            farm.setLabelingMode(round % 3 == 2 ? LabelingMode.TWO_PASS : LabelingMode.FLOOD_FILL);
+            farm.setCollectingStatistics(true);
+            for (int r=random.nextInt(10); r>0; r--) {
+                farm.makeBarren(new Point(random.nextInt(farm.getWidth()), random.nextInt(farm.getLength())),
+                        new Point(random.nextInt(farm.getWidth()), random.nextInt(farm.getLength())));
+            }
+            if (round % 2 == 1) {
+                // a cut leaves the statistics stale, so they are collected again
+                farm.getRegionStatistics();
+                farm.makeBarren(new Point(0, farm.getLength() / 2), new Point(farm.getWidth() - 1, farm.getLength() / 2));
+            }
+            RegionStatistics statistics = farm.getRegionStatistics();
+            int[][] land = farm.getLand();
+            int regions = statistics.getRegionCount();
+            assertEquals(farm.getFertileLand().size(), regions);
+            int[] area = new int[regions + 1];
+            int[] minX = new int[regions + 1];
+            int[] maxY = new int[regions + 1];
+            long[] perimeter = new long[regions + 1];
+            long[] sumX = new long[regions + 1];
+            Arrays.fill(minX, Integer.MAX_VALUE);
+            Arrays.fill(maxY, -1);
+            for (int i=0; i<farm.getWidth(); i++) {
+                for (int j=0; j<farm.getLength(); j++) {
+                    int label = land[i][j];
+                    if (label <= 0) {
+                        continue;
+                    }
+                    area[label]++;
+                    minX[label] = Math.min(minX[label], i);
+                    maxY[label] = Math.max(maxY[label], j);
+                    sumX[label] += i;
+                    perimeter[label] += (i == 0 || land[i-1][j] == -1 ? 1 : 0) + (j == 0 || land[i][j-1] == -1 ? 1 : 0)
+                            + (i == farm.getWidth()-1 || land[i+1][j] == -1 ? 1 : 0)
+                            + (j == farm.getLength()-1 || land[i][j+1] == -1 ? 1 : 0);
+                }
+            }
+            for (int r=1; r<=regions; r++) {
+                assertEquals(area[r], statistics.getArea(r));
+                assertEquals(minX[r], statistics.getMinX(r));
+                assertEquals(maxY[r], statistics.getMaxY(r));
+                assertEquals(perimeter[r], statistics.getPerimeter(r));
+                assertEquals((double) sumX[r] / area[r], statistics.getCentroidX(r), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void RegionStatisticsProvidedCaseTest() throws InvalidBoundaryException {
+        assertThrows(IllegalStateException.class, () -> bigFarm.getRegionStatistics());
+        bigFarm.setCollectingStatistics(true);
+        bigFarm.makeBarren(new Point(0,292), new Point(399, 307));
+        RegionStatistics statistics = bigFarm.getRegionStatistics();
+        assertEquals(2, statistics.getRegionCount());
+        assertEquals(399, statistics.getMaxX(1));
+        assertEquals(291, statistics.getMaxY(1));
+        assertEquals(2 * (400 + 292), statistics.getPerimeter(1));
+        assertEquals(145.5, statistics.getCentroidY(1), 1e-9);
+        assertEquals(453.5, statistics.getCentroidY(2), 1e-9);
+        assertThrows(IllegalArgumentException.class, () -> statistics.getArea(3));
+    }
+
+    // a fork behaves like a farm built from scratch with the same rectangles,
+    // and neither the fork nor its parent sees the other's changes
+    @Test
+    public void ForkTest() throws InvalidBoundaryException {
+        Random random = new Random(43);
+        for (int round=0; round<40; round++) {
+            int width = 1 + random.nextInt(90);
+            int length = 1 + random.nextInt(90);
+            Farm base = new Farm(width, length, LandStorageType.values()[round % LandStorageType.values().length]);
+            base.setLabelingMode(round % 5 == 4 ? LabelingMode.WORD_RUNS : LabelingMode.FLOOD_FILL);
+            List<Point> corners = new ArrayList<>();
+            for (int r=random.nextInt(15); r>0; r--) {
+                corners.add(new Point(random.nextInt(width), random.nextInt(length)));
+                corners.add(new Point(random.nextInt(width), random.nextInt(length)));
+                base.makeBarren(corners.get(corners.size() - 2), corners.get(corners.size() - 1));
+            }
+            if (round % 2 == 0) {
+                base.getFertileLand();
+            }
+            List<Integer> baseAreas = base.getFertileLand();
+            int[][] baseLand = base.getLand();
+            for (int f=0; f<3; f++) {
+                Farm fork = base.fork();
+                Farm expected = new Farm(width, length);
+                for (int c=0; c<corners.size(); c+=2) {
+                    expected.makeBarren(corners.get(c), corners.get(c + 1));
+                }
+                for (int r=1+random.nextInt(3); r>0; r--) {
+                    Point a = new Point(random.nextInt(width), random.nextInt(length));
+                    Point b = new Point(random.nextInt(width), random.nextInt(length));
+                    fork.makeBarren(a, b);
+                    expected.makeBarren(a, b);
+                }
+                assertEquals(expected.getFertileLand(), fork.getFertileLand());
+                assertEquals(expected.getBarrenRectangles().size(), fork.getBarrenRectangles().size());
+                for (int i=0; i<width; i++) {
+                    for (int j=0; j<length; j++) {
+                        assertEquals(expected.getLand()[i][j] < 0, fork.getLand()[i][j] < 0);
+                    }
+                }
+                // the parent is untouched, also after it changes the shared land itself
+                assertEquals(baseAreas, base.getFertileLand());
+                for (int i=0; i<width; i++) {
+                    assertArrayEquals(baseLand[i], base.getLand()[i]);
+                }
+            }
+            base.makeBarren(new Point(0, 0), new Point(width - 1, 0));
+            base.getFertileLand();
+        }
+    }
+
+    // changing a fork's parallelism must not shut down the parent's pool
+    @Test
+    public void ForkParallelismTest() throws InvalidBoundaryException {
+        bigFarm.setLabelingMode(LabelingMode.PARALLEL);
+        bigFarm.setParallelism(2);
+        bigFarm.makeBarren(new Point(0,292), new Point(399, 307));
+        assertEquals(Arrays.asList(116800, 116800), bigFarm.getFertileLand());
+        Farm fork = bigFarm.fork();
+        assertEquals(2, fork.getParallelism());
+        fork.setParallelism(3);
+        fork.resetLand();
+        assertEquals(Arrays.asList(240000), fork.getFertileLand());
+        bigFarm.resetLand();
+        bigFarm.makeBarren(new Point(0,0), new Point(399, 0));
+        assertEquals(Arrays.asList(239600), bigFarm.getFertileLand());
+        assertEquals(2, bigFarm.getParallelism());
+    }
+
+    // a fork of a large paged farm only copies the pages its edits touch
+    @Test
+    public void PagedForkSharesPagesTest() throws InvalidBoundaryException {
+        Farm base = new Farm(2000, 2000, LandStorageType.PAGED);
+        List<BarrenRectangle> grid = new ArrayList<>();
+        for (int i=0; i<2000; i+=100) {
+            grid.add(new BarrenRectangle(i, 0, i, 1999));
+            grid.add(new BarrenRectangle(0, i, 1999, i));
+        }
+        base.makeBarren(grid);
+        List<Integer> baseAreas = base.getFertileLand();
+        assertEquals(400, baseAreas.size());
+        PagedLandStorage baseStorage = (PagedLandStorage) base.getStorage();
+        int basePages = baseStorage.ownedPages();
+
+        List<Farm> forks = new ArrayList<>();
+        for (int f=0; f<100; f++) {
+            Farm fork = base.fork();
+            // cut one 99x99 cell of the grid in half
+            int x = 100 * (f % 20) + 50;
+            int y = 100 * (f / 20) + 1;
+            fork.makeBarren(new Point(x, y), new Point(x, y + 98));
+            assertEquals(baseAreas.size() + 1, fork.getFertileLand().size());
+            // the cut cell spans at most 100 rows of 2000 cells
+            assertTrue(((PagedLandStorage) fork.getStorage()).ownedPages() <= 50);
+            forks.add(fork);
+        }
+        assertEquals(baseAreas, base.getFertileLand());
+        assertEquals(0, baseStorage.ownedPages());
+        assertTrue(basePages > 900);
+    }
 }
@@ -0,0 +1,131 @@
+package com.target.barrenland;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import java.awt.*;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+public class FertileAreasTest {
+
+    // the radix sort must agree with Arrays.sort, below and above the
+    // comparison sort threshold, with small and very large values
+    @Test
+    public void RadixSortTest() {
+        Random random = new Random(41);
+        for (int round=0; round<200; round++) {
+            int n = random.nextInt(round < 100 ? 100 : 5000);
+            long[] values = new long[n];
+            for (int i=0; i<n; i++) {
+                switch (round % 4) {
+                    case 0:
+                        values[i] = random.nextInt(1000);
+                        break;
+                    case 1:
+                        values[i] = random.nextLong() & Long.MAX_VALUE;
+                        break;
+                    case 2:
+                        // same low bytes, so some passes are skipped
+                        values[i] = (long) random.nextInt(50) << 40;
+                        break;
+                    default:
+                        values[i] = 7;
+                }
+            }
+            long[] expected = values.clone();
+            Arrays.sort(expected);
+            FertileAreas.radixSort(values, n);
+            assertArrayEquals(expected, values);
+        }
+    }
+
+    @Test
+    public void AccessTest() {
+        FertileAreas areas = FertileAreas.sort(new long[]{5000000000L, 3, 12, 3});
+        assertEquals(4, areas.size());
+        assertEquals(3, areas.get(0));
+        assertEquals(5000000000L, areas.get(3));
+        assertArrayEquals(new long[]{3, 3, 12, 5000000000L}, areas.toArray());
+        assertEquals(5000000018L, areas.stream().sum());
+        PrimitiveIterator.OfLong iterator = areas.iterator();
+        long[] seen = new long[4];
+        for (int i=0; i<4; i++) {
+            seen[i] = iterator.nextLong();
+        }
+        assertFalse(iterator.hasNext());
+        assertArrayEquals(areas.toArray(), seen);
+        assertEquals(FertileAreas.ofSorted(new long[]{3, 3, 12, 5000000000L}), areas);
+    }
+
+    // writeTo prints what BarrenLandAnalysis has always printed, including
+    // when the output is larger than the internal buffer
+    @Test
+    public void WriteToTest() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        FertileAreas.ofSorted(new long[]{0, 22816, 192608, Long.MAX_VALUE}).writeTo(out);
+        assertEquals("0 22816 192608 9223372036854775807 \n", new String(out.toByteArray(), StandardCharsets.US_ASCII));
+
+        out.reset();
+        FertileAreas.ofSorted(new long[0]).writeTo(out);
+        assertEquals("\n", new String(out.toByteArray(), StandardCharsets.US_ASCII));
+
+        long[] many = new long[100000];
+        StringBuilder expected = new StringBuilder();
+        for (int i=0; i<many.length; i++) {
+            many[i] = 1000L * i;
+            expected.append(many[i]).append(' ');
+        }
+        expected.append('\n');
+        out.reset();
+        FertileAreas.ofSorted(many).writeTo(out);
+        assertEquals(expected.toString(), new String(out.toByteArray(), StandardCharsets.US_ASCII));
+    }
+
+    // the newline still fits when the last area ends right at the flush limit
+    @Test
+    public void WriteToBufferBoundaryTest() throws IOException {
+        for (int small=0; small<40; small++) {
+            long[] areas = new long[small + 3276];
+            StringBuilder expected = new StringBuilder();
+            for (int i=0; i<areas.length; i++) {
+                areas[i] = i < small ? 1 : 1000000000000000000L;
+                expected.append(areas[i]).append(' ');
+            }
+            expected.append('\n');
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            FertileAreas.ofSorted(areas).writeTo(out);
+            assertEquals(expected.toString(), new String(out.toByteArray(), StandardCharsets.US_ASCII));
+        }
+    }
+
+    // every engine gives the same areas as its getFertileLand()
+    @Test
+    public void EnginesTest() throws InvalidBoundaryException {
+        AbstractFarm[] farms = {new Farm(400, 600), new CompressedFarm(400, 600),
+                new RunLengthFarm(400, 600), new StreamingFarm(400, 600)};
+        for (AbstractFarm farm : farms) {
+            farm.makeBarren(new Point(48,192), new Point(351, 207));
+            farm.makeBarren(new Point(48,392), new Point(351, 407));
+            farm.makeBarren(new Point(120,52), new Point(135, 547));
+            farm.makeBarren(new Point(260,52), new Point(275, 547));
+            List<Integer> expected = farm.getFertileLand();
+            FertileAreas areas = farm.getSortedAreas();
+            assertEquals(expected.size(), areas.size());
+            for (int a=0; a<areas.size(); a++) {
+                assertEquals((long) expected.get(a), areas.get(a));
+            }
+        }
+        // areas that don't fit in an int
+        CompressedFarm hugeFarm = new CompressedFarm(1000000, 1000000);
+        hugeFarm.makeBarren(new Point(499999, 0), new Point(499999, 999999));
+        assertArrayEquals(new long[]{499999000000L, 500000000000L}, hugeFarm.getSortedAreas().toArray());
+    }
+}
@@ -0,0 +1,103 @@
+package com.target.barrenland;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class FertileLandCacheTest {
+
+    List<BarrenRectangle> provided = Arrays.asList(
+            new BarrenRectangle(48, 192, 351, 207),
+            new BarrenRectangle(48, 392, 351, 407),
+            new BarrenRectangle(120, 52, 135, 547),
+            new BarrenRectangle(260, 52, 275, 547));
+
+    // the same farm in another order, with a duplicate and a contained rectangle, is a hit
+    @Test
+    public void CanonicalHitTest() throws InvalidBoundaryException {
+        FertileLandCache cache = new FertileLandCache(4);
+        List<Integer> areas = cache.getFertileLand(400, 600, provided);
+        assertEquals(Arrays.asList(22816, 192608), areas);
+        List<BarrenRectangle> shuffled = Arrays.asList(
+                provided.get(3), new BarrenRectangle(130, 60, 121, 500), provided.get(1),
+                provided.get(0), provided.get(2), provided.get(1));
+        assertSame(areas, cache.getFertileLand(400, 600, shuffled));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        // different dimensions are a different farm
+        cache.getFertileLand(401, 600, provided);
+        assertEquals(2, cache.getMisses());
+        assertThrows(UnsupportedOperationException.class, () -> areas.add(1));
+    }
+
+    @Test
+    public void CanonicalizeTest() {
+        List<BarrenRectangle> canonical = FertileLandCache.canonicalize(Arrays.asList(
+                new BarrenRectangle(5, 5, 6, 6),
+                new BarrenRectangle(0, 0, 9, 9),
+                new BarrenRectangle(0, 0, 9, 9),
+                new BarrenRectangle(8, 0, 12, 3)));
+        assertEquals(Arrays.asList(new BarrenRectangle(0, 0, 9, 9), new BarrenRectangle(8, 0, 12, 3)), canonical);
+    }
+
+    @Test
+    public void EvictionTest() throws InvalidBoundaryException {
+        FertileLandCache cache = new FertileLandCache(2);
+        List<BarrenRectangle> none = Collections.emptyList();
+        cache.getFertileLand(10, 10, none);
+        cache.getFertileLand(20, 10, none);
+        // touch 10x10 so 20x10 is the least recently used
+        cache.getFertileLand(10, 10, none);
+        assertEquals(Arrays.asList(300), cache.getFertileLand(30, 10, none));
+        assertEquals(1, cache.getEvictions());
+        assertEquals(2, cache.size());
+        cache.getFertileLand(10, 10, none);
+        assertEquals(2, cache.getHits());
+        cache.getFertileLand(20, 10, none);
+        assertEquals(4, cache.getMisses());
+    }
+
+    // the pool keeps no farm of a size the cache no longer holds
+    @Test
+    public void PoolBoundedByCacheTest() throws InvalidBoundaryException {
+        FertileLandCache cache = new FertileLandCache(2);
+        List<BarrenRectangle> none = Collections.emptyList();
+        for (int width=1; width<=100; width++) {
+            cache.getFertileLand(width, 10, none);
+            assertTrue(cache.getPool().getIdle() <= 2);
+        }
+        assertEquals(98, cache.getEvictions());
+        // 99x10 and 100x10 share a size class, so only the last farm is kept
+        assertEquals(1, cache.getPool().getIdle());
+        cache.clear();
+        assertEquals(0, cache.getPool().getIdle());
+
+        // evicting the last 10x10 farm drops its pooled farm too
+        cache = new FertileLandCache(2);
+        List<BarrenRectangle> corner = Collections.singletonList(new BarrenRectangle(0, 0, 0, 0));
+        cache.getFertileLand(10, 10, none);
+        cache.getFertileLand(10, 10, corner);
+        cache.getFertileLand(20, 20, none);
+        assertEquals(2, cache.getPool().getIdle());
+        cache.getFertileLand(20, 20, corner);
+        assertEquals(2, cache.getEvictions());
+        assertEquals(1, cache.getPool().getIdle());
+        assertEquals(0, cache.getPool().getEvicted());
+        assertEquals(2, cache.getPool().getReused());
+    }
+
+    @Test
+    public void InvalidFarmTest() {
+        FertileLandCache cache = new FertileLandCache(2);
+        assertThrows(InvalidBoundaryException.class, () -> cache.getFertileLand(10, 10,
+                Collections.singletonList(new BarrenRectangle(0, 0, 10, 10))));
+        assertThrows(IllegalArgumentException.class, () -> new FertileLandCache(0));
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,77 @@
+package com.target.barrenland;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+import java.awt.*;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+public class MappedFarmTest {
+
+    MappedFarm bigFarm;
+
+    @Before
+    public void setup() throws InvalidBoundaryException, IOException {
+        bigFarm = new MappedFarm(400, 600);
+    }
+
+    @After
+    public void teardown() throws IOException {
+        bigFarm.close();
+    }
+
+    @Test
+    public void MakeBarrenInvalidBoundariesTest() {
+        Exception exception = assertThrows(InvalidBoundaryException.class, () -> {
+            bigFarm.makeBarren(new Point(0,3), new Point(400,5));
+        });
+        assertTrue(exception.getMessage().contains("Barren land coordinates must be in land matrix."));
+    }
+
+    @Test
+    public void ProvidedCaseTest() throws InvalidBoundaryException {
+        assertEquals(Arrays.asList(240000), bigFarm.getFertileLand());
+        bigFarm.makeBarren(new Point(0,292), new Point(399, 307));
+        assertEquals(Arrays.asList(116800, 116800), bigFarm.getFertileLand());
+        bigFarm.resetLand();
+        bigFarm.makeBarren(new Point(48,192), new Point(351, 207));
+        bigFarm.makeBarren(new Point(48,392), new Point(351, 407));
+        bigFarm.makeBarren(new Point(120,52), new Point(135, 547));
+        bigFarm.makeBarren(new Point(260,52), new Point(275, 547));
+        assertEquals(Arrays.asList(22816, 192608), bigFarm.getFertileLand());
+    }
+
+    // random rectangles must give exactly the same result as the grid engine,
+    // including rows that end inside a word or exactly on a word boundary
+    @Test
+    public void MatchesGridEngineTest() throws InvalidBoundaryException, IOException {
+        Random random = new Random(31);
+        for (int round=0; round<60; round++) {
+            int width = 1 + random.nextInt(40);
+            int length = round % 2 == 0 ? 64 * (1 + random.nextInt(3)) : 1 + random.nextInt(200);
+            try (MappedFarm mapped = new MappedFarm(width, length)) {
+                FarmAssert.assertMatchesFarm(mapped, random, random.nextInt(30));
+            }
+        }
+    }
+
+    // 3 billion coordinates, more than any Java array can hold
+    @Test
+    public void HugeFarmTest() throws InvalidBoundaryException, IOException {
+        try (MappedFarm hugeFarm = new MappedFarm(60000, 50000)) {
+            // every row is padded to a whole number of words
+            assertEquals(60000L * ((50000 + 63) / 64) * 8, hugeFarm.getMatrixBytes());
+            hugeFarm.makeBarren(new Point(0,25000), new Point(59999,25000));
+            hugeFarm.makeBarren(new Point(30000,0), new Point(30000,24999));
+            assertArrayEquals(new long[]{29999L * 25000, 30000L * 25000, 60000L * 24999},
+                    hugeFarm.getFertileAreas());
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.target.barrenland;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+public class QuadTreeFarmTest {
+
+    QuadTreeFarm bigFarm;
+    QuadTreeFarm squareFarm;
+
+    @Before
+    public void setup() throws InvalidBoundaryException {
+        bigFarm = new QuadTreeFarm(400, 600);
+        squareFarm = new QuadTreeFarm(30, 30);
+    }
+
+    @Test
+    public void MakeBarrenInvalidBoundariesTest() {
+        Exception exception = assertThrows(InvalidBoundaryException.class, () -> {
+            squareFarm.makeBarren(new Point(-1,3), new Point(4,5));
+        });
+        assertTrue(exception.getMessage().contains("Barren land coordinates must be in land matrix."));
+        assertThrows(InvalidBoundaryException.class, () -> squareFarm.makeBarren(new Point(0,0), new Point(30,5)));
+        assertThrows(InvalidBoundaryException.class, () -> new QuadTreeFarm(0, 10));
+    }
+
+    @Test
+    public void GetFertileLandTest() throws InvalidBoundaryException {
+        assertEquals(Arrays.asList(900), squareFarm.getFertileLand());
+        squareFarm.makeBarren(new Point(3,4), new Point(8,29));
+        squareFarm.makeBarren(new Point(0,25), new Point(16,16));
+        squareFarm.makeBarren(new Point(28,2), new Point(20,7));
+        squareFarm.makeBarren(new Point(29,6), new Point(7,10));
+        assertEquals(Arrays.asList(12, 162, 319), squareFarm.getFertileLand());
+        // asking again gives the same answer
+        assertEquals(Arrays.asList(12, 162, 319), squareFarm.getFertileLand());
+        // covering everything merges the tree back into its root
+        squareFarm.makeBarren(new Point(0,0), new Point(29,29));
+        assertEquals(new ArrayList<>(), squareFarm.getFertileLand());
+        assertEquals(1, squareFarm.getNodeCount());
+        squareFarm.resetLand();
+        assertEquals(Arrays.asList(900), squareFarm.getFertileLand());
+    }
+
+    @Test
+    public void ProvidedCaseTest() throws InvalidBoundaryException {
+        bigFarm.makeBarren(new Point(0,292), new Point(399, 307));
+        assertEquals(Arrays.asList(116800, 116800), bigFarm.getFertileLand());
+        bigFarm.resetLand();
+        bigFarm.makeBarren(new Point(48,192), new Point(351, 207));
+        bigFarm.makeBarren(new Point(48,392), new Point(351, 407));
+        bigFarm.makeBarren(new Point(120,52), new Point(135, 547));
+        bigFarm.makeBarren(new Point(260,52), new Point(275, 547));
+        assertEquals(Arrays.asList(22816, 192608), bigFarm.getFertileLand());
+    }
+
+    // random rectangles must give exactly the same result as the grid engine,
+    // including on farms whose sides are far from a power of two
+    @Test
+    public void MatchesGridEngineTest() throws InvalidBoundaryException {
+        Random random = new Random(47);
+        for (int round=0; round<150; round++) {
+            int width = 1 + random.nextInt(70);
+            int length = 1 + random.nextInt(70);
+            FarmAssert.assertMatchesFarm(new QuadTreeFarm(width, length), random, random.nextInt(25));
+        }
+    }
+
+    // big blocky zones take few nodes however large the farm is,
+    // and areas that don't fit in an int are reported exactly
+    @Test
+    public void HugeFarmTest() throws InvalidBoundaryException {
+        QuadTreeFarm hugeFarm = new QuadTreeFarm(1 << 20, 1 << 20);
+        hugeFarm.makeBarren(new Point(0, 1 << 19), new Point((1 << 20) - 1, (1 << 19) + 1023));
+        hugeFarm.makeBarren(new Point(1 << 19, 0), new Point((1 << 19) + 1023, (1 << 20) - 1));
+        long quadrant = (long) (1 << 19) * (1 << 19);
+        long corner = (long) ((1 << 19) - 1024) * ((1 << 19) - 1024);
+        assertArrayEquals(new long[]{corner, quadrant - (1 << 19) * 1024L, quadrant - (1 << 19) * 1024L, quadrant},
+                hugeFarm.getFertileAreas());
+        // each band needs a block of 1024 x 1024 per 1024 of its length, 2^40 cells in ~8k nodes
+        assertTrue(hugeFarm.getNodeCount() < 10000);
+        assertThrows(ArithmeticException.class, () -> hugeFarm.getFertileLand());
+    }
+}
@@ -0,0 +1,84 @@
+package com.target.barrenland;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+public class RectangleReaderTest {
+
+    private static List<BarrenRectangle> read(String input) throws IOException {
+        byte[] bytes = input.getBytes(StandardCharsets.UTF_8);
+        return new RectangleReader(Channels.newChannel(new ByteArrayInputStream(bytes))).readAll();
+    }
+
+    @Test
+    public void PlainFormatTest() throws IOException {
+        assertEquals(Arrays.asList(new BarrenRectangle(0, 292, 399, 307)), read("0 292 399 307\n"));
+        assertEquals(Arrays.asList(new BarrenRectangle(1, 2, 3, 4), new BarrenRectangle(5, 6, 7, 8)),
+                read("  1 2\t3 4\r\n5 6 7 8"));
+        assertEquals(Arrays.asList(), read(""));
+    }
+
+    // the quoted format from the problem specification
+    @Test
+    public void SpecificationFormatTest() throws IOException {
+        List<BarrenRectangle> rectangles = read("{“48 192 351 207”, “48 392 351 407”,\n" +
+                "“120 52 135 547”, “260 52 275 547”}");
+        assertEquals(4, rectangles.size());
+        assertEquals(new BarrenRectangle(260, 52, 275, 547), rectangles.get(3));
+    }
+
+    // numbers are parsed exactly, including across buffer refills
+    @Test
+    public void LargeInputTest() throws IOException {
+        StringBuilder input = new StringBuilder();
+        for (int r=0; r<20000; r++) {
+            input.append(r).append(' ').append(-r).append(' ').append(Integer.MAX_VALUE).append(' ')
+                    .append(Integer.MIN_VALUE).append('\n');
+        }
+        List<BarrenRectangle> rectangles = read(input.toString());
+        assertEquals(20000, rectangles.size());
+        assertEquals(new BarrenRectangle(19999, -19999, Integer.MAX_VALUE, Integer.MIN_VALUE), rectangles.get(19999));
+    }
+
+    @Test
+    public void InvalidInputTest() {
+        assertThrows(IOException.class, () -> read("1 2 3"));
+        assertThrows(IOException.class, () -> read("1 2 3 2147483648"));
+        assertThrows(IOException.class, () -> read("1 2 3 - 4"));
+    }
+
+    // characters that are neither digits nor separators are rejected,
+    // not taken as the end of a number
+    @Test
+    public void UnexpectedCharacterTest() throws IOException {
+        assertThrows(IOException.class, () -> read("1.5 2 3 4"));
+        assertThrows(IOException.class, () -> read("12a34 5 6"));
+        assertThrows(IOException.class, () -> read("x 1 2 3 4"));
+        assertThrows(IOException.class, () -> read("1 2 3 4;"));
+        assertThrows(IOException.class, () -> read("1 2 3 4 €"));
+        Exception exception = assertThrows(IOException.class, () -> read("1 2 3 4.0"));
+        assertEquals("Unexpected '.' in input, only digits, '-', whitespace, commas, braces and quotes are allowed.",
+                exception.getMessage());
+        // straight and single quotes are separators too
+        assertEquals(Arrays.asList(new BarrenRectangle(1, 2, 3, 4)), read("{\"1 2 3 4\"}"));
+        assertEquals(Arrays.asList(new BarrenRectangle(1, 2, 3, 4)), read("‘1 2 3 4’"));
+    }
+
+    // a 0xFF byte is a character, not the end of the input
+    @Test
+    public void HighByteTest() {
+        byte[] bytes = {'1', ' ', '2', ' ', '3', ' ', '4', ' ', (byte) 0xFF, ' ', '5', ' ', '6', ' ', '7', ' ', '8'};
+        Exception exception = assertThrows(IOException.class,
+                () -> new RectangleReader(Channels.newChannel(new ByteArrayInputStream(bytes))).readAll());
+        assertEquals("Unexpected byte 0xFF in input, only digits, '-', whitespace, commas, braces and quotes are allowed.",
+                exception.getMessage());
+    }
+}
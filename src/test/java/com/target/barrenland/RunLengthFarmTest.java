@@ -0,0 +1,81 @@
+package com.target.barrenland;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+public class RunLengthFarmTest {
+
+    RunLengthFarm bigFarm;
+    RunLengthFarm squareFarm;
+
+    @Before
+    public void setup() throws InvalidBoundaryException {
+        bigFarm = new RunLengthFarm(400, 600);
+        squareFarm = new RunLengthFarm(30, 30);
+    }
+
+    @Test
+    public void MakeBarrenInvalidBoundariesTest() {
+        Exception exception = assertThrows(InvalidBoundaryException.class, () -> {
+            squareFarm.makeBarren(new Point(-1,3), new Point(4,5));
+        });
+        assertTrue(exception.getMessage().contains("Barren land coordinates must be in land matrix."));
+    }
+
+    @Test
+    public void GetFertileLandTest() throws InvalidBoundaryException {
+        assertEquals(Arrays.asList(900), squareFarm.getFertileLand());
+        squareFarm.makeBarren(new Point(3,4), new Point(8,29));
+        squareFarm.makeBarren(new Point(0,25), new Point(16,16));
+        squareFarm.makeBarren(new Point(28,2), new Point(20,7));
+        squareFarm.makeBarren(new Point(29,6), new Point(7,10));
+        assertEquals(Arrays.asList(12, 162, 319), squareFarm.getFertileLand());
+        // asking again gives the same answer
+        assertEquals(Arrays.asList(12, 162, 319), squareFarm.getFertileLand());
+        squareFarm.makeBarren(new Point(0,0), new Point(29,29));
+        assertEquals(new ArrayList<>(), squareFarm.getFertileLand());
+        assertEquals(0, squareFarm.getRunCount());
+    }
+
+    @Test
+    public void ProvidedCaseTest() throws InvalidBoundaryException {
+        bigFarm.makeBarren(new Point(0,292), new Point(399, 307));
+        assertEquals(Arrays.asList(116800, 116800), bigFarm.getFertileLand());
+        bigFarm.resetLand();
+        bigFarm.makeBarren(new Point(48,192), new Point(351, 207));
+        bigFarm.makeBarren(new Point(48,392), new Point(351, 407));
+        bigFarm.makeBarren(new Point(120,52), new Point(135, 547));
+        bigFarm.makeBarren(new Point(260,52), new Point(275, 547));
+        assertEquals(Arrays.asList(22816, 192608), bigFarm.getFertileLand());
+    }
+
+    // random rectangles must give exactly the same result as the grid engine
+    @Test
+    public void MatchesGridEngineTest() throws InvalidBoundaryException {
+        Random random = new Random(29);
+        for (int round=0; round<100; round++) {
+            int width = 1 + random.nextInt(60);
+            int length = 1 + random.nextInt(60);
+            FarmAssert.assertMatchesFarm(new RunLengthFarm(width, length), random, random.nextInt(40));
+        }
+    }
+
+    // long rows with a few barren strips cost a handful of runs
+    @Test
+    public void LongRowsTest() throws InvalidBoundaryException {
+        RunLengthFarm longFarm = new RunLengthFarm(1000, 2000000000);
+        longFarm.makeBarren(new Point(0,1000000000), new Point(999,1000000000));
+        longFarm.makeBarren(new Point(500,0), new Point(500,999999999));
+        assertEquals(1999, longFarm.getRunCount());
+        assertArrayEquals(new long[]{499000000000L, 500000000000L, 999999999000L}, longFarm.getFertileAreas());
+    }
+}
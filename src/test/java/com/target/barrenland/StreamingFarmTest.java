@@ -0,0 +1,67 @@
+package com.target.barrenland;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import java.awt.*;
+import java.util.Arrays;
+import java.util.Random;
+
+public class StreamingFarmTest {
+
+    @Test
+    public void ConstructorInvalidBandTest() {
+        assertThrows(IllegalArgumentException.class, () -> new StreamingFarm(10, 10, 0));
+        assertThrows(InvalidBoundaryException.class, () -> new StreamingFarm(0, 10));
+    }
+
+    @Test
+    public void ProvidedCaseTest() throws InvalidBoundaryException {
+        StreamingFarm bigFarm = new StreamingFarm(400, 600);
+        bigFarm.makeBarren(new Point(0,292), new Point(399, 307));
+        assertEquals(Arrays.asList(116800, 116800), bigFarm.getFertileLand());
+        bigFarm.resetLand();
+        bigFarm.makeBarren(new Point(48,192), new Point(351, 207));
+        bigFarm.makeBarren(new Point(48,392), new Point(351, 407));
+        bigFarm.makeBarren(new Point(120,52), new Point(135, 547));
+        bigFarm.makeBarren(new Point(260,52), new Point(275, 547));
+        assertEquals(Arrays.asList(22816, 192608), bigFarm.getFertileLand());
+    }
+
+    // random rectangles must give exactly the same result as the grid engine,
+    // whatever the band size
+    @Test
+    public void MatchesGridEngineTest() throws InvalidBoundaryException {
+        Random random = new Random(37);
+        for (int round=0; round<100; round++) {
+            int width = 1 + random.nextInt(60);
+            int length = 1 + random.nextInt(150);
+            FarmAssert.assertMatchesFarm(new StreamingFarm(width, length, 1 + random.nextInt(8)), random, random.nextInt(40));
+        }
+    }
+
+    // a region that winds back and forth across many bands
+    @Test
+    public void SerpentineTest() throws InvalidBoundaryException {
+        StreamingFarm serpentine = new StreamingFarm(200, 50, 3);
+        Farm farm = new Farm(200, 50);
+        for (int x=1; x<200; x+=2) {
+            Point a = new Point(x, x % 4 == 1 ? 0 : 1);
+            Point b = new Point(x, x % 4 == 1 ? 48 : 49);
+            serpentine.makeBarren(a, b);
+            farm.makeBarren(a, b);
+        }
+        assertEquals(farm.getFertileLand(), serpentine.getFertileLand());
+        assertEquals(1, serpentine.getFertileLand().size());
+    }
+
+    // a very wide farm only ever holds one band
+    @Test
+    public void WideFarmTest() throws InvalidBoundaryException {
+        StreamingFarm wide = new StreamingFarm(2000000, 1000);
+        wide.makeBarren(new Point(1000000,0), new Point(1000000,999));
+        assertArrayEquals(new long[]{999999000L, 1000000000L}, wide.getFertileAreas());
+    }
+}